@@ -15,6 +15,7 @@
  */
 package se.trixon.filebydate;
 
+import java.io.File;
 import java.util.Locale;
 import org.openide.util.NbPreferences;
 import se.trixon.almond.util.OptionsBase;
@@ -26,7 +27,19 @@ import se.trixon.almond.util.OptionsBase;
 public class Options extends OptionsBase {
 
     public static final String KEY_LOCALE = "locale";
+    public static final String KEY_MAX_FILES_PER_SECOND = "max_files_per_second";
+    public static final String KEY_MAX_MEGABYTES_PER_SECOND = "max_megabytes_per_second";
+    public static final String KEY_METADATA_MAX_MEGABYTES = "metadata_max_megabytes";
+    public static final String KEY_METADATA_READERS = "metadata_readers";
+    public static final String KEY_METADATA_TIMEOUT = "metadata_timeout";
+    public static final String KEY_PLAN_ON_DISK = "plan_on_disk";
+    public static final String KEY_PROMETHEUS_DIR = "prometheus_dir";
+    public static final String KEY_VERIFY_DIRECT = "verify_direct";
+    public static final int MAX_METADATA_READERS = 64;
     private static final Locale DEFAULT_LOCALE = Locale.getDefault();
+    private static final int DEFAULT_METADATA_MAX_MEGABYTES = 256;
+    private static final int DEFAULT_METADATA_READERS = 1;
+    private static final int DEFAULT_METADATA_TIMEOUT = 30;
 
     public static Options getInstance() {
         return Holder.INSTANCE;
@@ -40,10 +53,98 @@ public class Options extends OptionsBase {
         return Locale.forLanguageTag(mPreferences.get(KEY_LOCALE, DEFAULT_LOCALE.toLanguageTag()));
     }
 
+    /**
+     * Returns the file rate limit per device, 0 for unlimited.
+     */
+    public int getMaxFilesPerSecond() {
+        return mPreferences.getInt(KEY_MAX_FILES_PER_SECOND, 0);
+    }
+
+    /**
+     * Returns the bandwidth limit per device, 0 for unlimited.
+     */
+    public int getMaxMegabytesPerSecond() {
+        return mPreferences.getInt(KEY_MAX_MEGABYTES_PER_SECOND, 0);
+    }
+
+    /**
+     * Returns how many megabytes a metadata read may take from a file, 0 for
+     * unlimited.
+     */
+    public int getMetadataMaxMegabytes() {
+        return mPreferences.getInt(KEY_METADATA_MAX_MEGABYTES, DEFAULT_METADATA_MAX_MEGABYTES);
+    }
+
+    /**
+     * Returns how many dates are read at a time, 1 for one after the other.
+     * Network mounts benefit from a few dozen. Each is a thread, so it is
+     * capped at {@link #MAX_METADATA_READERS}.
+     */
+    public int getMetadataReaders() {
+        return Math.max(1, Math.min(mPreferences.getInt(KEY_METADATA_READERS, DEFAULT_METADATA_READERS), MAX_METADATA_READERS));
+    }
+
+    /**
+     * Returns how many seconds a metadata read may take, 0 for unlimited.
+     */
+    public int getMetadataTimeout() {
+        return mPreferences.getInt(KEY_METADATA_TIMEOUT, DEFAULT_METADATA_TIMEOUT);
+    }
+
+    public File getPrometheusDir() {
+        var path = mPreferences.get(KEY_PROMETHEUS_DIR, "");
+
+        return path.isBlank() ? null : new File(path);
+    }
+
+    public boolean isPlanOnDisk() {
+        return mPreferences.getBoolean(KEY_PLAN_ON_DISK, false);
+    }
+
+    /**
+     * Whether verification reads copies back from the device rather than
+     * from the page cache.
+     */
+    public boolean isVerifyDirect() {
+        return mPreferences.getBoolean(KEY_VERIFY_DIRECT, false);
+    }
+
     public void setLocale(Locale locale) {
         mPreferences.put(KEY_LOCALE, locale.toLanguageTag());
     }
 
+    public void setMaxFilesPerSecond(int maxFilesPerSecond) {
+        mPreferences.putInt(KEY_MAX_FILES_PER_SECOND, maxFilesPerSecond);
+    }
+
+    public void setMaxMegabytesPerSecond(int maxMegabytesPerSecond) {
+        mPreferences.putInt(KEY_MAX_MEGABYTES_PER_SECOND, maxMegabytesPerSecond);
+    }
+
+    public void setMetadataMaxMegabytes(int metadataMaxMegabytes) {
+        mPreferences.putInt(KEY_METADATA_MAX_MEGABYTES, metadataMaxMegabytes);
+    }
+
+    public void setMetadataReaders(int metadataReaders) {
+        mPreferences.putInt(KEY_METADATA_READERS, metadataReaders);
+    }
+
+    public void setMetadataTimeout(int metadataTimeout) {
+        mPreferences.putInt(KEY_METADATA_TIMEOUT, metadataTimeout);
+    }
+
+    public void setPlanOnDisk(boolean planOnDisk) {
+        mPreferences.putBoolean(KEY_PLAN_ON_DISK, planOnDisk);
+    }
+
+    public void setPrometheusDir(File dir) {
+        mPreferences.put(KEY_PROMETHEUS_DIR, dir == null ? "" : dir.getPath());
+    }
+
+    public void setVerifyDirect(boolean verifyDirect) {
+        mPreferences.putBoolean(KEY_VERIFY_DIRECT, verifyDirect);
+    }
+
     private static class Holder {
 
         private static final Options INSTANCE = new Options();
@@ -15,8 +15,10 @@
  */
 package se.trixon.filebydate.boot;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ResourceBundle;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.netbeans.api.sendopts.CommandException;
 import org.netbeans.spi.sendopts.Arg;
 import org.netbeans.spi.sendopts.ArgsProcessor;
@@ -29,9 +31,12 @@ import org.openide.util.NbBundle.Messages;
 import se.trixon.almond.util.Dict;
 import se.trixon.almond.util.PomInfo;
 import se.trixon.filebydate.core.ExecutorManager;
+import se.trixon.filebydate.core.RunBudget;
 import se.trixon.filebydate.core.StorageManager;
 import se.trixon.filebydate.core.Task;
 import se.trixon.filebydate.core.TaskManager;
+import se.trixon.filebydate.core.plan.PlanFile;
+import se.trixon.filebydate.core.plan.PlanReader;
 
 /**
  *
@@ -43,6 +48,10 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(shortDescription = "#opt_dry_run")
     @Messages({"opt_dry_run=perform a trial run with no changes made"})
     public boolean mDryRun;
+    @Arg(longName = "real-run")
+    @Description(shortDescription = "#opt_real_run")
+    @Messages({"opt_real_run=make --start a real run, required with --max-duration or --max-bytes"})
+    public boolean mRealRun;
     @Arg(longName = "copy", shortName = 'c')
     @Description(shortDescription = "#opt_copy")
     @Messages({"opt_copy=copy the files"})
@@ -51,14 +60,66 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(shortDescription = "#opt_move")
     @Messages({"opt_move=move the files"})
     public boolean mCmdMove;
+    @Arg(longName = "link")
+    @Description(shortDescription = "#opt_link")
+    @Messages({"opt_link=hard link the files, copy across file systems"})
+    public boolean mCmdLink;
+    @Arg(longName = "clone")
+    @Description(shortDescription = "#opt_clone")
+    @Messages({"opt_clone=clone the files (reflink), copy where unsupported"})
+    public boolean mCmdClone;
     @Arg(longName = "source", shortName = 's')
     @Description(displayName = "#opt_source_display", shortDescription = "#opt_source")
     @Messages({"opt_source_display=-s, --source <arg>", "opt_source=source directory"})
     public String mDirSource;
+    @Arg(longName = "sources")
+    @Description(displayName = "#opt_sources_display", shortDescription = "#opt_sources")
+    @Messages({"opt_sources_display=--sources <dirs>", "opt_sources=also scan these source directories, separated by the path separator, in parallel"})
+    public String mDirsSources;
     @Arg(longName = "dest", shortName = 'd')
     @Description(displayName = "#opt_dest_display", shortDescription = "#opt_dest")
     @Messages({"opt_dest_display=-d, --dest <arg>", "opt_dest=destination directory"})
     public String mDirDest;
+    @Arg(longName = "tee")
+    @Description(displayName = "#opt_tee_display", shortDescription = "#opt_tee")
+    @Messages({"opt_tee_display=--tee <dirs>", "opt_tee=also copy to these destinations, separated by the path separator, reading the source once"})
+    public String mDirsTee;
+    @Arg(longName = "include")
+    @Description(displayName = "#opt_include_display", shortDescription = "#opt_include")
+    @Messages({"opt_include_display=--include <patterns>", "opt_include=also include files matching these patterns, separated by spaces"})
+    public String mInclude;
+    @Arg(longName = "exclude")
+    @Description(displayName = "#opt_exclude_display", shortDescription = "#opt_exclude")
+    @Messages({"opt_exclude_display=--exclude <patterns>", "opt_exclude=leave out files matching these patterns, and directories for patterns ending with /, separated by spaces"})
+    public String mExclude;
+    @Arg(longName = "min-size")
+    @Description(displayName = "#opt_min_size_display", shortDescription = "#opt_min_size")
+    @Messages({"opt_min_size_display=--min-size <arg>", "opt_min_size=skip files smaller than this (e.g. 50K)"})
+    public String mMinSize;
+    @Arg(longName = "max-size")
+    @Description(displayName = "#opt_max_size_display", shortDescription = "#opt_max_size")
+    @Messages({"opt_max_size_display=--max-size <arg>", "opt_max_size=skip files larger than this (e.g. 2G)"})
+    public String mMaxSize;
+    @Arg(longName = "modified-from")
+    @Description(displayName = "#opt_modified_from_display", shortDescription = "#opt_modified_from")
+    @Messages({"opt_modified_from_display=--modified-from <date>", "opt_modified_from=skip files modified before this date (e.g. 2026-10-01)"})
+    public String mModifiedFrom;
+    @Arg(longName = "modified-to")
+    @Description(displayName = "#opt_modified_to_display", shortDescription = "#opt_modified_to")
+    @Messages({"opt_modified_to_display=--modified-to <date>", "opt_modified_to=skip files modified after this date (e.g. 2026-10-31)"})
+    public String mModifiedTo;
+    @Arg(longName = "max-depth")
+    @Description(displayName = "#opt_max_depth_display", shortDescription = "#opt_max_depth")
+    @Messages({"opt_max_depth_display=--max-depth <n>", "opt_max_depth=pick up files at most this many levels below the source when recursive"})
+    public String mMaxDepth;
+    @Arg(longName = "skip-hidden")
+    @Description(shortDescription = "#opt_skip_hidden")
+    @Messages({"opt_skip_hidden=skip hidden files and directories"})
+    public boolean mSkipHidden;
+    @Arg(longName = "skip-empty")
+    @Description(shortDescription = "#opt_skip_empty")
+    @Messages({"opt_skip_empty=skip empty files"})
+    public boolean mSkipEmpty;
 //
     @Arg(longName = "links", shortName = 'l')
     @Description(shortDescription = "#opt_links")
@@ -68,18 +129,46 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(shortDescription = "#opt_overwrite")
     @Messages({"opt_overwrite=replace existing files"})
     public boolean mOverwrite;
+    @Arg(longName = "compare")
+    @Description(shortDescription = "#opt_compare")
+    @Messages({"opt_compare=skip existing files with identical content, report the others as conflicts"})
+    public boolean mCompare;
+    @Arg(longName = "dedup")
+    @Description(shortDescription = "#opt_dedup")
+    @Messages({"opt_dedup=transfer each distinct content once, report duplicate sources"})
+    public boolean mDedup;
+    @Arg(longName = "sidecars")
+    @Description(shortDescription = "#opt_sidecars")
+    @Messages({"opt_sidecars=date xmp, aae and thm sidecar files by the file they belong to and transfer them together"})
+    public boolean mSidecars;
     @Arg(longName = "recursive", shortName = 'r')
     @Description(shortDescription = "#opt_recursive")
     @Messages({"opt_recursive=process directories recursively"})
     public boolean mRecursive;
+    @Arg(longName = "verify")
+    @Description(shortDescription = "#opt_verify")
+    @Messages({"opt_verify=verify copies with a checksum and write SHA256SUMS in every destination directory"})
+    public boolean mVerify;
     @Arg(longName = "date-pattern", shortName = 'p')
     @Description(displayName = "#opt_date_pattern_display", shortDescription = "#opt_date_pattern")
     @Messages({"opt_date_pattern_display=-p, --date-pattern <arg>", "opt_date_pattern=java date pattern (https://goo.gl/vbRe5T)"})
     public String mDatePattern;
     @Arg(longName = "date-source", shortName = 'a')
     @Description(displayName = "#opt_date_source_display", shortDescription = "#opt_date_source")
-    @Messages({"opt_date_source_display=-a,--date-source <arg>", "opt_date_source=date source, one of:\n\t\t\t\t• exif_original\n\t\t\t\t• file_created\n\t\t\t\t• file_modified"})
+    @Messages({"opt_date_source_display=-a,--date-source <arg>", "opt_date_source=date source, one of:\n\t\t\t\t• exif_original\n\t\t\t\t• file_created\n\t\t\t\t• file_modified\n\t\t\t\t• file_name\n\t\t\t\t• quicktime_created\n\t\t\t\tor several separated by commas, tried in order"})
     public String mDateSource;
+    @Arg(longName = "name-patterns")
+    @Description(displayName = "#opt_filename_date_patterns_display", shortDescription = "#opt_filename_date_patterns")
+    @Messages({"opt_filename_date_patterns_display=--name-patterns <patterns>", "opt_filename_date_patterns=regular expressions with year, month and day groups, separated by spaces, for dates in file names"})
+    public String mFilenameDatePatterns;
+    @Arg(longName = "from")
+    @Description(displayName = "#opt_date_from_display", shortDescription = "#opt_date_from")
+    @Messages({"opt_date_from_display=--from <date>", "opt_date_from=only files dated this day or later (e.g. 2026-10-01)"})
+    public String mDateFrom;
+    @Arg(longName = "to")
+    @Description(displayName = "#opt_date_to_display", shortDescription = "#opt_date_to")
+    @Messages({"opt_date_to_display=--to <date>", "opt_date_to=only files dated this day or earlier (e.g. 2026-10-31)"})
+    public String mDateTo;
     @Arg(longName = "case-base", shortName = 'b')
     @Description(displayName = "#opt_case_base_display", shortDescription = "#opt_case_base")
     @Messages({"opt_case_base_display=-b,--case-base <arg>", "opt_case_base=base name case, one of:\n\t\t\t\t• l, lower\n\t\t\t\t• u, upper"})
@@ -88,6 +177,14 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(displayName = "#opt_case_ext_display", shortDescription = "#opt_case_ext")
     @Messages({"opt_case_ext_display=-e,--case-ext <arg>", "opt_case_ext=extension case, one of:\n\t\t\t\t• l, lower\n\t\t\t\t• u, upper"})
     public String mCaseExt;
+    @Arg(longName = "max-duration")
+    @Description(displayName = "#opt_max_duration_display", shortDescription = "#opt_max_duration")
+    @Messages({"opt_max_duration_display=--max-duration <arg>", "opt_max_duration=stop cleanly after this long and continue on the next run (e.g. 3h, 90m), requires --real-run"})
+    public String mMaxDuration;
+    @Arg(longName = "max-bytes")
+    @Description(displayName = "#opt_max_bytes_display", shortDescription = "#opt_max_bytes")
+    @Messages({"opt_max_bytes_display=--max-bytes <arg>", "opt_max_bytes=stop cleanly after transferring this much and continue on the next run (e.g. 500G), requires --real-run"})
+    public String mMaxBytes;
 //
     @Arg(longName = "list")
     @Description(shortDescription = "#opt_list")
@@ -97,6 +194,14 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(displayName = "#DoArgsProcessing.start.name", shortDescription = "#DoArgsProcessing.start.desc")
     @Messages({"DoArgsProcessing.start.name=--start <task>", "DoArgsProcessing.start.desc=start task"})
     public String mStartOption;
+    @Arg(longName = "apply")
+    @Description(displayName = "#DoArgsProcessing.apply.name", shortDescription = "#DoArgsProcessing.apply.desc")
+    @Messages({"DoArgsProcessing.apply.name=--apply <plan>", "DoArgsProcessing.apply.desc=execute a plan saved by a dry run"})
+    public String mApplyOption;
+    @Arg(longName = "resume")
+    @Description(displayName = "#DoArgsProcessing.resume.name", shortDescription = "#DoArgsProcessing.resume.desc")
+    @Messages({"DoArgsProcessing.resume.name=--resume <task>", "DoArgsProcessing.resume.desc=resume an interrupted run of the task"})
+    public String mResumeOption;
     @Arg(longName = "info")
     @Description(displayName = "#DoArgsProcessing.info.name", shortDescription = "#DoArgsProcessing.info.desc")
     @Messages({"DoArgsProcessing.info.name=--info <task>", "DoArgsProcessing.info.desc=display info about the task"})
@@ -105,6 +210,7 @@ public class DoArgsProcessing implements ArgsProcessor {
     @Description(shortDescription = "#DoArgsProcessing.version.desc")
     @Messages("DoArgsProcessing.version.desc=print the version information and exit")
     public boolean mVersionOption;
+    private RunBudget mBudget;
     private final ResourceBundle mBundle = NbBundle.getBundle(DoArgsProcessing.class);
     private final TaskManager mTaskManager = TaskManager.getInstance();
 
@@ -117,6 +223,16 @@ public class DoArgsProcessing implements ArgsProcessor {
 
     @Override
     public void process(Env env) throws CommandException {
+        try {
+            mBudget = RunBudget.parse(mMaxDuration, mMaxBytes);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.out.println(Dict.ABORTING.toString());
+            LifecycleManager.getDefault().exit();
+
+            return;
+        }
+
         if (mVersionOption) {
             displayVersion();
         } else if (mListOption) {
@@ -125,6 +241,12 @@ public class DoArgsProcessing implements ArgsProcessor {
         } else if (mStartOption != null) {
             load();
             startTask(mTaskManager.getByName(mStartOption));
+        } else if (mApplyOption != null) {
+            load();
+            applyPlan(new File(mApplyOption));
+        } else if (mResumeOption != null) {
+            load();
+            resumeTask(mTaskManager.getByName(mResumeOption));
         } else if (mInfo != null) {
             load();
             infoTask(mTaskManager.getByName(mInfo));
@@ -135,18 +257,51 @@ public class DoArgsProcessing implements ArgsProcessor {
         LifecycleManager.getDefault().exit();
     }
 
+    private void applyPlan(File planFile) {
+        try (var reader = new PlanReader(planFile)) {
+            var task = mTaskManager.getById(reader.getTaskId());
+            if (task == null) {
+                System.err.println(mBundle.getString("apply_task_missing").formatted(reader.getTaskId()));
+            } else {
+                ExecutorManager.getInstance().apply(task, planFile, mBudget);
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+
     private void buildTask() {
         var task = new Task();
         task.setModeCopy(mCmdCopy);
         task.setModeMove(mCmdMove);
+        task.setModeLink(mCmdLink);
+        task.setModeClone(mCmdClone);
         task.setDatePattern(mDatePattern);
         task.setDateSourceString(mDateSource);
+        task.setFilenameDatePatternsString(mFilenameDatePatterns);
+        task.setDateFrom(mDateFrom);
+        task.setDateTo(mDateTo);
         task.setCaseBaseString(mCaseBase);
         task.setCaseExtString(mCaseExt);
         task.setFollowLinks(mLinks);
         task.setRecursive(mRecursive);
         task.setSourceAndDest(mDirSource, mDirDest);
+        task.setExtraSourceDirsString(mDirsSources);
+        task.setIncludesString(mInclude);
+        task.setExcludesString(mExclude);
+        task.setMinSize(mMinSize);
+        task.setMaxSize(mMaxSize);
+        task.setModifiedFrom(mModifiedFrom);
+        task.setModifiedTo(mModifiedTo);
+        task.setMaxDepth(mMaxDepth == null ? 0 : NumberUtils.toInt(mMaxDepth, -1));
+        task.setSkipHidden(mSkipHidden);
+        task.setSkipEmpty(mSkipEmpty);
+        task.setExtraDestDirsString(mDirsTee);
         task.setReplaceExisting(mOverwrite);
+        task.setCompareExisting(mCompare);
+        task.setDeduplicate(mDedup);
+        task.setGroupSidecars(mSidecars);
+        task.setVerify(mVerify);
 //        System.out.println(task.toDebugString());
 
         if (task.isValid()) {
@@ -182,9 +337,34 @@ public class DoArgsProcessing implements ArgsProcessor {
         }
     }
 
-    private void startTask(Task task) {
+    private void resumeTask(Task task) {
         if (task != null) {
-            ExecutorManager.getInstance().start(task, true);
+            var planFile = StorageManager.getInstance().getPlanFile(task);
+            var state = PlanFile.readState(planFile, task.getPlanKey());
+            if (state == PlanFile.State.SCANNED || state == PlanFile.State.PLANNED) {
+                ExecutorManager.getInstance().start(task, false, mBudget);
+            } else {
+                System.err.println(mBundle.getString("resume_nothing").formatted(task.getName()));
+            }
+        }
+    }
+
+    /**
+     * Starts the task as a trial run, or a real one with --real-run. A run
+     * with a budget has to be real, so it can stop at a checkpoint and
+     * continue on the next start.
+     */
+    private void startTask(Task task) {
+        if (task == null) {
+            return;
+        } else if (mRealRun && mDryRun) {
+            System.err.println(mBundle.getString("real_run_dry_run"));
+            System.out.println(Dict.ABORTING.toString());
+        } else if (mBudget.isLimited() && !mRealRun) {
+            System.err.println(mBundle.getString("budget_dry_run"));
+            System.out.println(Dict.ABORTING.toString());
+        } else {
+            ExecutorManager.getInstance().start(task, !mRealRun, mBudget);
         }
     }
 }
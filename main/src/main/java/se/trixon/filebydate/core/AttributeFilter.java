@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Size, modification time, hidden and empty file limits, evaluated on the
+ * attributes the scanner has already read.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class AttributeFilter {
+
+    private final long mMaxModified;
+    private final long mMaxSize;
+    private final long mMinModified;
+    private final long mMinSize;
+    private final boolean mSkipEmpty;
+    private final boolean mSkipHidden;
+
+    /**
+     * Parses an ISO date, 2026-10-19, or date and time, 2026-10-19T14:30,
+     * in the local time zone, or returns the default if it is blank. A date
+     * alone means the start of the day, or the end of it if {@code end} is
+     * set.
+     *
+     * @return epoch milliseconds
+     * @throws IllegalArgumentException if it isn't a date
+     */
+    public static long parseTime(String time, boolean end, long defaultTime) {
+        if (StringUtils.isBlank(time)) {
+            return defaultTime;
+        }
+
+        try {
+            var value = time.trim();
+            var zone = ZoneId.systemDefault();
+            if (value.contains("T")) {
+                return LocalDateTime.parse(value).atZone(zone).toInstant().toEpochMilli();
+            }
+
+            var date = LocalDate.parse(value);
+            if (end) {
+                return date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+            } else {
+                return date.atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+        } catch (DateTimeException ex) {
+            throw new IllegalArgumentException("Invalid date: " + time, ex);
+        }
+    }
+
+    public AttributeFilter(long minSize, long maxSize, long minModified, long maxModified, boolean skipHidden, boolean skipEmpty) {
+        mMinSize = minSize;
+        mMaxSize = maxSize;
+        mMinModified = minModified;
+        mMaxModified = maxModified;
+        mSkipHidden = skipHidden;
+        mSkipEmpty = skipEmpty;
+    }
+
+    /**
+     * Whether the directory and everything below it should be walked.
+     */
+    public boolean acceptDirectory(String name, BasicFileAttributes attrs) {
+        return !mSkipHidden || !isHidden(name, attrs);
+    }
+
+    public boolean acceptFile(String name, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        if (size < mMinSize || size > mMaxSize || (mSkipEmpty && size == 0)) {
+            return false;
+        }
+
+        long modified = attrs.lastModifiedTime().toMillis();
+        if (modified < mMinModified || modified > mMaxModified) {
+            return false;
+        }
+
+        return !mSkipHidden || !isHidden(name, attrs);
+    }
+
+    /**
+     * Dot files are hidden everywhere, and files with the DOS hidden
+     * attribute where the file system has one. The attributes read on
+     * Windows already carry it, so this costs no extra call.
+     */
+    private boolean isHidden(String name, BasicFileAttributes attrs) {
+        return name.startsWith(".") || (attrs instanceof DosFileAttributes dosAttrs && dosAttrs.isHidden());
+    }
+}
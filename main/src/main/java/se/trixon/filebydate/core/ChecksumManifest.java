@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maintains a checksum file in sha256sum format in every destination
+ * directory, so a copy can be checked with {@code sha256sum -c SHA256SUMS}.
+ * <p>
+ * The entries of a run are collected for a few directories at a time and
+ * merged into the existing file when a directory is evicted or the run ends,
+ * which keeps one line per file name even when files are replaced. Plain
+ * java.io streams are used, since the file is also written after a cancel has
+ * interrupted the thread.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class ChecksumManifest implements Closeable {
+
+    public static final String FILENAME = "SHA256SUMS";
+    private static final int MAX_PENDING_DIRS = 16;
+    private final LinkedHashMap<File, LinkedHashMap<String, String>> mPending = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ChecksumManifest() {
+    }
+
+    public void add(File file, String hash) throws IOException {
+        var dir = file.getParentFile();
+        var entries = mPending.get(dir);
+        if (entries == null) {
+            if (mPending.size() >= MAX_PENDING_DIRS) {
+                var eldest = mPending.entrySet().iterator().next();
+                mPending.remove(eldest.getKey());
+                write(eldest.getKey(), eldest.getValue());
+            }
+
+            entries = new LinkedHashMap<>();
+            mPending.put(dir, entries);
+        }
+
+        entries.put(getName(file.getName()), hash);
+    }
+
+    /**
+     * Writes all pending directories.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (var entry : mPending.entrySet()) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (IOException ex) {
+                exception = ex;
+            }
+        }
+
+        mPending.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the name the way sha256sum writes it, names with a backslash or
+     * a line break are escaped and their line is prefixed with a backslash.
+     */
+    private String getName(String name) {
+        if (name.indexOf('\\') < 0 && name.indexOf('\n') < 0) {
+            return name;
+        }
+
+        return "\\" + name.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private void write(File dir, Map<String, String> entries) throws IOException {
+        var file = new File(dir, FILENAME);
+        var lines = new LinkedHashMap<String, String>();
+
+        if (file.isFile()) {
+            try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                    int offset = line.startsWith("\\") ? 1 : 0;
+                    // 64 hex digits, a space and a space or an asterisk
+                    if (line.length() > offset + 66) {
+                        var name = (offset == 1 ? "\\" : "") + line.substring(offset + 66);
+                        lines.put(name, line.substring(offset, offset + 64));
+                    }
+                }
+            }
+        }
+
+        lines.putAll(entries);
+
+        var tempFile = FileTransfer.getTempFile(file);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            for (var entry : lines.entrySet()) {
+                var name = entry.getKey();
+                if (name.startsWith("\\")) {
+                    writer.write("\\" + entry.getValue() + "  " + name.substring(1) + "\n");
+                } else {
+                    writer.write(entry.getValue() + "  " + name + "\n");
+                }
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
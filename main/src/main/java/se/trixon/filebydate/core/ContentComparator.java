@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decides whether an existing destination file has the same content as the
+ * source, in stages of increasing cost: size, a hash of the head and tail
+ * blocks and finally a full hash. Both sides are hashed in parallel and full
+ * hashes are cached.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class ContentComparator {
+
+    /**
+     * Files up to this size are read completely by the head and tail hash.
+     */
+    static final int SAMPLE_SIZE = 2 * 64 * 1024;
+    private static final int BLOCK_SIZE = SAMPLE_SIZE / 2;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private final ExecutorService mExecutorService;
+    private final HashCache mHashCache = HashCache.getInstance();
+
+    public static ContentComparator getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the SHA-256 of the whole file as hex, from the cache if
+     * possible.
+     */
+    public static String hash(File file) throws IOException {
+        var hashCache = HashCache.getInstance();
+        var hash = hashCache.get(file);
+        if (hash != null) {
+            return hash;
+        }
+
+        var digest = newDigest();
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException(file.getPath());
+                }
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+        }
+
+        hash = HexFormat.of().formatHex(digest.digest());
+        hashCache.put(file, hash);
+
+        return hash;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static byte[] hashHeadAndTail(File file) throws IOException {
+        var digest = newDigest();
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            var buffer = ByteBuffer.allocate((int) Math.min(BLOCK_SIZE, size));
+            readFully(channel, buffer, 0);
+            digest.update(buffer.flip());
+            if (size > BLOCK_SIZE) {
+                buffer.clear();
+                readFully(channel, buffer, Math.max(BLOCK_SIZE, size - BLOCK_SIZE));
+                digest.update(buffer.flip());
+            }
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Fills the buffer from the given position, or up to the end of the
+     * file. A single read may return less, network file systems often do.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                break;
+            }
+            position += count;
+        }
+    }
+
+    private ContentComparator() {
+        mExecutorService = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            var thread = new Thread(runnable, "ContentComparator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isIdentical(File source, File dest) throws IOException {
+        if (source.length() != dest.length()) {
+            return false;
+        }
+
+        var sourceHash = mHashCache.get(source);
+        var destHash = mHashCache.get(dest);
+        if (sourceHash == null || destHash == null) {
+            var sourceSample = mExecutorService.submit(() -> hashHeadAndTail(source));
+            var destSample = mExecutorService.submit(() -> hashHeadAndTail(dest));
+            if (!MessageDigest.isEqual(await(sourceSample), await(destSample))) {
+                return false;
+            }
+
+            var sourceFuture = mExecutorService.submit(() -> hash(source));
+            var destFuture = mExecutorService.submit(() -> hash(dest));
+            sourceHash = await(sourceFuture);
+            destHash = await(destFuture);
+        }
+
+        return sourceHash.equals(destHash);
+    }
+
+    /**
+     * Runs a hashing job on the shared pool.
+     */
+    <T> Future<T> submit(Callable<T> callable) {
+        return mExecutorService.submit(callable);
+    }
+
+    private <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private static class Holder {
+
+        private static final ContentComparator INSTANCE = new ContentComparator();
+    }
+}
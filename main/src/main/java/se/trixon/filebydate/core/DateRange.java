@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import se.trixon.filebydate.core.parts.DateSource;
+
+/**
+ * Limits for the date of a file, inclusive, in epoch milliseconds.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public record DateRange(long from, long to) {
+
+    public static final DateRange UNLIMITED = new DateRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    /**
+     * How much later than its modification time an embedded date may be,
+     * to allow for camera clocks and dates without a time zone.
+     */
+    private static final long MODIFIED_SLACK = TimeUnit.DAYS.toMillis(1);
+
+    public boolean contains(long date) {
+        return date >= from && date <= to;
+    }
+
+    public boolean isLimited() {
+        return from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether the file can have a date in range, from the attributes
+     * alone. File dates are checked exactly. Dates read from the content are
+     * assumed not to be later than the modification time, so a file last
+     * modified before the start can't match and is never opened.
+     * <p>
+     * With a chain of sources it is enough that one of them can match, up to
+     * the first file date, since that one is always found.
+     */
+    public boolean isPossible(List<DateSource> dateSources, BasicFileAttributes attrs) {
+        for (var dateSource : dateSources) {
+            if (isPossible(dateSource, attrs)) {
+                return true;
+            } else if (dateSource.isAttribute()) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isPossible(DateSource dateSource, BasicFileAttributes attrs) {
+        return switch (dateSource) {
+            case FILE_CREATED ->
+                contains(attrs.creationTime().toMillis());
+            case FILE_MODIFIED ->
+                contains(attrs.lastModifiedTime().toMillis());
+            default ->
+                from == Long.MIN_VALUE || attrs.lastModifiedTime().toMillis() >= from - MODIFIED_SLACK;
+        };
+    }
+}
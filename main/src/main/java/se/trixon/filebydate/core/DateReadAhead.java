@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import com.drew.imaging.ImageProcessingException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Reads dates for the items of an iterator ahead of the loop that consumes
+ * them, and hands them back in iterator order.
+ * <p>
+ * On network mounts most of a date read is spent waiting for the server, so
+ * keeping several reads in flight hides the latency. At most {@code limit}
+ * items are buffered, which bounds both the reads in flight and the memory
+ * used. Each read runs on its worker, time limit included, so a limit of n
+ * takes n threads. With a limit of one, dates are read on the consuming
+ * thread when asked for.
+ *
+ * @param <T> the item type
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class DateReadAhead<T> implements AutoCloseable {
+
+    private final ArrayDeque<Entry<T>> mEntries = new ArrayDeque<>();
+    private final Iterator<T> mItems;
+    private final int mLimit;
+    private final Function<T, Callable<Date>> mReader;
+    private final ExecutorService mWorkers;
+
+    /**
+     * @param reader returns the read for an item, or null if the item needs
+     * no date
+     */
+    public DateReadAhead(Iterator<T> items, int limit, Function<T, Callable<Date>> reader) {
+        mItems = items;
+        mLimit = Math.max(1, limit);
+        mReader = reader;
+        mWorkers = mLimit == 1 ? null : Executors.newFixedThreadPool(mLimit, runnable -> {
+            var thread = new Thread(runnable, "DateReader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cancels the reads in flight and stops the workers.
+     */
+    @Override
+    public void close() {
+        for (var entry : mEntries) {
+            if (entry.mFuture != null) {
+                entry.mFuture.cancel(true);
+            }
+        }
+        mEntries.clear();
+
+        if (mWorkers != null) {
+            mWorkers.shutdownNow();
+        }
+    }
+
+    public boolean hasNext() {
+        fill();
+
+        return !mEntries.isEmpty();
+    }
+
+    public Entry<T> next() {
+        fill();
+        var entry = mEntries.poll();
+        fill();
+
+        return entry;
+    }
+
+    private void fill() {
+        while (mEntries.size() < mLimit && mItems.hasNext()) {
+            var item = mItems.next();
+            var read = mReader.apply(item);
+            FutureTask<Date> future = null;
+            if (read != null) {
+                future = new FutureTask<>(read);
+                if (mWorkers != null) {
+                    mWorkers.execute(future);
+                }
+            }
+            mEntries.add(new Entry<>(item, future));
+        }
+    }
+
+    public static class Entry<T> {
+
+        private final FutureTask<Date> mFuture;
+        private final T mItem;
+
+        private Entry(T item, FutureTask<Date> future) {
+            mItem = item;
+            mFuture = future;
+        }
+
+        /**
+         * Waits for the date of the item, or returns null if the item needs
+         * no date.
+         *
+         * @throws InterruptedIOException if the thread is interrupted
+         */
+        public Date getDate() throws IOException, ImageProcessingException {
+            if (mFuture == null) {
+                return null;
+            }
+
+            // a read no worker has started yet runs here
+            mFuture.run();
+            try {
+                return mFuture.get();
+            } catch (InterruptedException ex) {
+                mFuture.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                } else if (ex.getCause() instanceof ImageProcessingException imageProcessingException) {
+                    throw imageProcessingException;
+                } else if (ex.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                } else {
+                    throw new IOException(ex.getCause());
+                }
+            }
+        }
+
+        public T getItem() {
+            return mItem;
+        }
+    }
+}
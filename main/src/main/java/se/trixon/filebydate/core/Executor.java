@@ -22,20 +22,36 @@ import com.drew.metadata.Metadata;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.netbeans.api.progress.ProgressHandle;
@@ -49,11 +65,16 @@ import org.openide.windows.InputOutput;
 import se.trixon.almond.nbp.output.OutputHelper;
 import se.trixon.almond.nbp.output.OutputLineMode;
 import se.trixon.almond.util.Dict;
+import se.trixon.filebydate.Options;
 import se.trixon.filebydate.core.parts.Command;
-import static se.trixon.filebydate.core.parts.DateSource.EXIF_ORIGINAL;
-import static se.trixon.filebydate.core.parts.DateSource.FILE_CREATED;
-import static se.trixon.filebydate.core.parts.DateSource.FILE_MODIFIED;
+import se.trixon.filebydate.core.parts.DateSource;
 import se.trixon.filebydate.core.parts.NameCase;
+import se.trixon.filebydate.core.plan.FilePlan;
+import se.trixon.filebydate.core.plan.PlanFile;
+import se.trixon.filebydate.core.plan.PlanReader;
+import se.trixon.filebydate.core.plan.PlanSink;
+import se.trixon.filebydate.core.plan.PlanWriter;
+import se.trixon.filebydate.core.plan.TransferJournal;
 
 /**
  *
@@ -61,20 +82,52 @@ import se.trixon.filebydate.core.parts.NameCase;
  */
 public class Executor implements Runnable {
 
+    private static final int CLONE_BATCH_SIZE = 256;
+    private static final String CLONE_STAGING_DIR = ".filebydate-clones";
+    private static final int COMMIT_BATCH_SIZE = 64;
+    private static final long COMMIT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SCAN_POLL_MILLIS = 100;
+    private static final int SCAN_QUEUE_CAPACITY = 64;
+    private File mApplyPlanFile;
+    private RunBudget mBudget = RunBudget.UNLIMITED;
+    private volatile boolean mBudgetExhausted;
     private final ResourceBundle mBundle = NbBundle.getBundle(Task.class);
+    private final HashSet<File> mClaimedDestFiles = new HashSet<>();
+    private final LinkedHashSet<Object> mCloneUnsupportedDevices = new LinkedHashSet<>();
 
+    private final ContentComparator mContentComparator = ContentComparator.getInstance();
+    private final SourceDeduplicator mDeduplicator = new SourceDeduplicator();
+    private Object mDestDevice;
+    private final LinkedHashSet<Object> mDestDevices = new LinkedHashSet<>();
     private final boolean mDryRun;
 
     private String mDryRunIndicator = "";
     private Thread mExecutorThread;
-    private final List<File> mFiles = new ArrayList<>();
     private final InputOutput mInputOutput;
     private boolean mInterrupted;
+    private final IoThrottle mIoThrottle = IoThrottle.getInstance();
+    private TransferJournal mJournal;
+    private long mLastCommit;
     private FoldHandle mMainFoldHandle;
+    private ChecksumManifest mManifest;
+    private MetadataGuard mMetadataGuard;
+    private final MetadataQuarantine mMetadataQuarantine = MetadataQuarantine.getInstance();
     private final OutputHelper mOutputHelper;
+    private final PauseGate mPauseGate = new PauseGate();
+    private final ArrayList<PendingClone> mPendingClones = new ArrayList<>();
+    private final ArrayList<PendingDelete> mPendingDeletes = new ArrayList<>();
+    private final FilePlan mPlan = new FilePlan();
+    private long mPosition;
     private ProgressHandle mProgressHandle;
+    private PrometheusExporter mPrometheusExporter;
+    private boolean mResuming;
+    private Object mSourceDevice;
+    private final LinkedHashMap<Path, Object> mSourceDevices = new LinkedHashMap<>();
+    private final Statistics mStatistics = new Statistics();
     private final StatusDisplayer mStatusDisplayer = StatusDisplayer.getDefault();
+    private int mTargetIndex;
     private final Task mTask;
+    private LinkedHashSet<Object> mThrottledDevices = new LinkedHashSet<>();
 
     public Executor(Task task, boolean dryRun) {
         mTask = task;
@@ -90,167 +143,1394 @@ public class Executor implements Runnable {
         mOutputHelper.reset();
 
         task.setOperation(task.getCommand().ordinal());
+
+        var prometheusDir = Options.getInstance().getPrometheusDir();
+        if (prometheusDir != null) {
+            mPrometheusExporter = new PrometheusExporter(prometheusDir, mTask, mStatistics, mDryRun, mInputOutput.getErr());
+        }
+    }
+
+    /**
+     * Creates an executor that applies a plan saved by a dry run.
+     */
+    public Executor(Task task, File planFile) {
+        this(task, false);
+        mApplyPlanFile = planFile;
+    }
+
+    @Override
+    public void run() {
+        var allowToCancel = (Cancellable) () -> {
+            mExecutorThread.interrupt();
+            mInterrupted = true;
+            mProgressHandle.finish();
+            ExecutorManager.getInstance().getExecutors().remove(mTask.getId());
+            jobEnded(OutputLineMode.WARNING, Dict.CANCELED.toString());
+            stopPrometheusExporter();
+
+            return true;
+        };
+
+        mProgressHandle = ProgressHandle.createHandle(mTask.getName(), allowToCancel);
+        mProgressHandle.start();
+        mProgressHandle.switchToIndeterminate();
+
+        mExecutorThread = new Thread(() -> {
+            mOutputHelper.start();
+            if (mPrometheusExporter != null) {
+                mPrometheusExporter.start();
+            }
+            mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.START.toString(), Dict.TASK.toLower(), mTask.getName());
+            mMainFoldHandle = IOFolding.startFold(mInputOutput, true);
+
+            if (!mTask.isValid()) {
+                mInputOutput.getErr().println(mTask.getValidationError());
+                jobEnded(OutputLineMode.ERROR, Dict.INVALID_INPUT.toString());
+                mInputOutput.getErr().println(String.format("\n\n%s", Dict.JOB_FAILED.toString()));
+                stopPrometheusExporter();
+
+                return;
+            }
+
+            for (var sourceDir : mTask.getSourceDirs()) {
+                mSourceDevices.put(sourceDir.toPath(), mIoThrottle.getDevice(sourceDir));
+            }
+            mDestDevice = mIoThrottle.getDevice(mTask.getDestDir());
+            mDestDevices.add(mDestDevice);
+            for (var extraDestDir : mTask.getExtraDestDirs()) {
+                mDestDevices.add(mIoThrottle.getDevice(extraDestDir));
+            }
+            if (mTask.isVerify() && !mDryRun) {
+                mManifest = new ChecksumManifest();
+            }
+            var options = Options.getInstance();
+            mMetadataGuard = new MetadataGuard(TimeUnit.SECONDS.toMillis(options.getMetadataTimeout()), options.getMetadataMaxMegabytes() * 1_000_000L);
+
+            if (mApplyPlanFile != null) {
+                applyPlanFile();
+            } else if (mDryRun || mBudget.isLimited() || mTask.getCommand() == Command.MOVE || Options.getInstance().isPlanOnDisk() || isPlanLeft()) {
+                processPlanFile();
+            } else {
+                processPlan();
+            }
+
+            if (mManifest != null) {
+                try {
+                    mManifest.close();
+                } catch (IOException ex) {
+                    mInputOutput.getErr().println(ex.getMessage());
+                    mStatistics.addError();
+                }
+            }
+
+            if (!mInterrupted) {
+                jobEnded(OutputLineMode.OK, Dict.DONE.toString());
+
+                if (!mDryRun) {
+                    mTask.setLastRun(System.currentTimeMillis());
+                    if (!mBudgetExhausted && mStatistics.getErrors() == 0) {
+                        mTask.setLastSuccess(mTask.getLastRun());
+                    }
+                    StorageManager.save();
+                }
+            }
+
+            mProgressHandle.finish();
+            ExecutorManager.getInstance().getExecutors().remove(mTask.getId());
+            stopPrometheusExporter();
+            HashCache.getInstance().save();
+            mMetadataQuarantine.save();
+        }, "Executor");
+
+        mExecutorThread.start();
+    }
+
+    public Statistics getStatistics() {
+        return mStatistics;
+    }
+
+    public boolean isPaused() {
+        return mPauseGate.isPaused();
+    }
+
+    /**
+     * Parks the run at the next file or chunk boundary.
+     */
+    public void pause() {
+        if (!mPauseGate.isPaused()) {
+            mPauseGate.pause();
+            mProgressHandle.suspend(mBundle.getString("paused"));
+            mOutputHelper.println(OutputLineMode.WARNING, mBundle.getString("paused"));
+        }
+    }
+
+    public void resume() {
+        if (mPauseGate.isPaused()) {
+            mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("resumed"));
+            mProgressHandle.progress(mBundle.getString("resumed"));
+            mPauseGate.resume();
+        }
+    }
+
+    /**
+     * Limits the run, must be called before {@link #run()}.
+     */
+    public void setBudget(RunBudget budget) {
+        mBudget = budget;
+    }
+
+    private void addChecksum(File sourceFile, File destFile, String hash) throws IOException {
+        mManifest.add(destFile, hash);
+        var hashCache = HashCache.getInstance();
+        hashCache.put(sourceFile, hash);
+        hashCache.put(destFile, hash);
+    }
+
+    /**
+     * Adds a link or clone to the checksum file if the hash of its source is
+     * cached. Hashing the source just for this would cost the full read the
+     * link saved, so an uncached file is left out.
+     */
+    private void addLinkChecksum(File sourceFile, File destFile) throws IOException {
+        var hashCache = HashCache.getInstance();
+        var hash = hashCache.get(sourceFile);
+        if (hash != null) {
+            mManifest.add(destFile, hash);
+            hashCache.put(destFile, hash);
+        }
+    }
+
+    /**
+     * Executes a plan saved by a dry run, without scanning or extracting
+     * dates. The run fails before any file is touched if a source has changed
+     * since the plan was made.
+     */
+    private void applyPlanFile() {
+        mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("plan_apply").formatted(mApplyPlanFile.getAbsolutePath()));
+
+        try {
+            if (PlanFile.readState(mApplyPlanFile, mTask.getPlanKey()) == null) {
+                mInputOutput.getErr().println(mBundle.getString("plan_key_mismatch"));
+            }
+
+            try (var reader = new PlanReader(mApplyPlanFile)) {
+                if (reader.getState() != PlanFile.State.PLANNED) {
+                    failPlan(mBundle.getString("plan_not_applicable").formatted(reader.getState()));
+                    return;
+                }
+            }
+
+            var changedSource = verifyPlanFile(mApplyPlanFile);
+            if (changedSource != null) {
+                failPlan(mBundle.getString("plan_source_changed").formatted(changedSource));
+                return;
+            }
+
+            executePlanFile(mApplyPlanFile);
+            if (!mInterrupted && !mBudgetExhausted) {
+                PlanFile.writeState(mApplyPlanFile, PlanFile.State.DONE);
+                FileUtils.deleteQuietly(TransferJournal.getFile(mApplyPlanFile));
+            }
+        } catch (IOException ex) {
+            failPlan(ex.getMessage());
+        }
+    }
+
+    /**
+     * Checks for cancel and parks while paused. Called at every file
+     * boundary.
+     */
+    private void awaitTurn() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        mPauseGate.await();
+    }
+
+    private void beforeChunk(long bytes) throws InterruptedException {
+        mPauseGate.await();
+        for (var device : mThrottledDevices) {
+            mIoThrottle.acquireBytes(device, bytes);
+        }
+    }
+
+    /**
+     * Clones the queued files with one cp and copies those that couldn't be
+     * cloned. A destination device that can't clone at all is remembered,
+     * later files to it are copied right away.
+     */
+    private void commitClones() throws IOException {
+        if (mPendingClones.isEmpty()) {
+            return;
+        }
+
+        var pendingClones = new ArrayList<>(mPendingClones);
+        mPendingClones.clear();
+        var result = FileTransfer.clone(
+                pendingClones.stream().map(PendingClone::sourceFile).toList(),
+                pendingClones.stream().map(PendingClone::destFile).toList(),
+                new File(mTask.getDestDir(), CLONE_STAGING_DIR));
+        if (result.unsupported() && mCloneUnsupportedDevices.add(mDestDevice)) {
+            mOutputHelper.println(OutputLineMode.WARNING, mBundle.getString("clone_unsupported"));
+        }
+
+        for (int i = 0; i < pendingClones.size(); i++) {
+            var pendingClone = pendingClones.get(i);
+            try {
+                if (!result.cloned().get(i)) {
+                    copy(pendingClone.sourceFile(), List.of(pendingClone.destFile()));
+                } else if (mManifest != null) {
+                    addLinkChecksum(pendingClone.sourceFile(), pendingClone.destFile());
+                }
+
+                if (mJournal != null) {
+                    mJournal.append(pendingClone.index(), TransferJournal.Step.COPIED);
+                    mJournal.append(pendingClone.index(), TransferJournal.Step.VERIFIED);
+                }
+            } catch (InterruptedIOException ex) {
+                throw ex;
+            } catch (IOException ex) {
+                mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                mStatistics.addError();
+            }
+        }
+    }
+
+    private void commitPendingDeletes() throws IOException {
+        if (mPendingDeletes.isEmpty()) {
+            return;
+        }
+
+        var verified = new ArrayList<PendingDelete>();
+        for (var pendingDelete : mPendingDeletes) {
+            try {
+                for (var destFile : pendingDelete.destFiles()) {
+                    try (var channel = FileChannel.open(destFile.toPath(), StandardOpenOption.WRITE)) {
+                        channel.force(true);
+                    }
+                }
+                mJournal.append(pendingDelete.index(), TransferJournal.Step.VERIFIED);
+                verified.add(pendingDelete);
+            } catch (IOException ex) {
+                mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                mStatistics.addError();
+            }
+        }
+
+        mJournal.sync();
+
+        for (var pendingDelete : verified) {
+            FileUtils.deleteQuietly(pendingDelete.sourceFile());
+            mJournal.append(pendingDelete.index(), TransferJournal.Step.DELETED);
+        }
+
+        mPendingDeletes.clear();
+        mLastCommit = System.nanoTime();
+    }
+
+    /**
+     * Copies a file to one or more destinations, reading it once. If the task
+     * verifies, the file is hashed on the way, read back and added to the
+     * checksum file of its directory. A destination of several that fails is
+     * reported and counted as an error as soon as it fails, the bytes are
+     * counted per destination directory as they are written.
+     *
+     * @return the destinations that failed
+     */
+    private List<File> copy(File sourceFile, List<File> destFiles) throws IOException {
+        var failed = new ArrayList<File>();
+        if (destFiles.size() == 1 && mManifest == null) {
+            FileTransfer.copy(sourceFile, destFiles.get(0), this::beforeChunk);
+            mStatistics.addDestBytes(getDestDir(destFiles.get(0)), destFiles.get(0).length());
+        } else if (destFiles.size() == 1) {
+            var checksum = FileTransfer.copyVerified(sourceFile, destFiles.get(0), this::beforeChunk, Options.getInstance().isVerifyDirect());
+            mStatistics.addDestBytes(getDestDir(destFiles.get(0)), destFiles.get(0).length());
+            mStatistics.addVerifyNanos(checksum.verifyNanos());
+            addChecksum(sourceFile, destFiles.get(0), checksum.hash());
+        } else {
+            var outcomes = FileTransfer.tee(sourceFile, destFiles, this::beforeChunk, new FileTransfer.TeeListener() {
+                @Override
+                public void completed(FileTransfer.Outcome outcome) throws IOException {
+                    if (outcome.exception() != null) {
+                        mInputOutput.getErr().println(getMessage(mBundle.getString("tee_failed").formatted(outcome.dest().getAbsolutePath(), outcome.exception().getLocalizedMessage())));
+                        mStatistics.addError();
+                    } else if (outcome.checksum() != null) {
+                        addChecksum(sourceFile, outcome.dest(), outcome.checksum().hash());
+                    }
+                }
+
+                @Override
+                public void written(File dest, long bytes) {
+                    mStatistics.addDestBytes(getDestDir(dest), bytes);
+                }
+            }, mManifest != null, Options.getInstance().isVerifyDirect());
+
+            long verifyNanos = 0;
+            for (var outcome : outcomes) {
+                if (outcome.exception() != null) {
+                    failed.add(outcome.dest());
+                } else if (outcome.checksum() != null) {
+                    verifyNanos = outcome.checksum().verifyNanos();
+                }
+            }
+            mStatistics.addVerifyNanos(verifyNanos);
+        }
+
+        return failed;
+    }
+
+    /**
+     * Copies, hard links or clones a file to the destination, which is null
+     * if it is skipped, and copies it to the extra destinations. Links and
+     * clones fall back to a copy across file systems. Clones are queued and
+     * made in batches by {@link #commitClones()}, which also copies where the
+     * file system can't share blocks.
+     *
+     * @return the destinations that failed
+     */
+    private List<File> copyOrLink(File sourceFile, File destFile, List<File> extraDestFiles, Command command) throws IOException {
+        var copies = new ArrayList<File>();
+        if (destFile != null) {
+            boolean sameDevice = mSourceDevice.equals(mDestDevice);
+            boolean linked = false;
+
+            if (command == Command.LINK && sameDevice) {
+                linked = FileTransfer.link(sourceFile, destFile);
+            } else if (command == Command.CLONE && sameDevice && !mCloneUnsupportedDevices.contains(mDestDevice)) {
+                mPendingClones.add(new PendingClone(mTargetIndex, sourceFile, destFile));
+                linked = true;
+            }
+
+            if (!linked) {
+                copies.add(destFile);
+            } else if (mManifest != null && command == Command.LINK) {
+                addLinkChecksum(sourceFile, destFile);
+            }
+        }
+
+        copies.addAll(extraDestFiles);
+
+        return copies.isEmpty() ? List.of() : copy(sourceFile, copies);
+    }
+
+    private void executePlanFile(File planFile) throws IOException {
+        mInputOutput.getOut().println("");
+        mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.PROCESSING.toString(), null, null);
+
+        try (var reader = new PlanReader(planFile); var journal = mDryRun ? null : new TransferJournal(TransferJournal.getFile(planFile), reader.getId())) {
+            mJournal = journal;
+            mLastCommit = System.nanoTime();
+            mProgressHandle.switchToDeterminate(reader.getCount());
+            int progress = reader.getCheckpointCount();
+            reader.seekCheckpoint();
+            if (progress > 0) {
+                mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("checkpoint_resume").formatted(progress));
+                mProgressHandle.progress(progress);
+            }
+
+            try {
+                while (true) {
+                    mPosition = reader.getPosition();
+                    mTargetIndex = progress;
+                    var target = reader.nextTarget();
+                    if (target == null) {
+                        break;
+                    }
+
+                    if (mBudget.isExhausted(System.currentTimeMillis() - mStatistics.getStarted(), mStatistics.getBytes(), target.size())) {
+                        mBudgetExhausted = true;
+                        mOutputHelper.println(OutputLineMode.WARNING, mBundle.getString("budget_exhausted").formatted(progress, reader.getCount()));
+                        break;
+                    }
+
+                    var sourceFile = target.getSourceFile();
+                    mProgressHandle.progress(sourceFile.getName());
+                    try {
+                        try {
+                            awaitTurn();
+                        } catch (InterruptedException ex) {
+                            mInterrupted = true;
+                            return;
+                        }
+
+                        if (!recover(target) && process(sourceFile, target.getDestFile(), target.size(), target.command()) == Outcome.STOP) {
+                            break;
+                        }
+                    } catch (InterruptedIOException ex) {
+                        mInterrupted = true;
+                        return;
+                    } catch (IOException ex) {
+                        mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                        mStatistics.addError();
+                    }
+
+                    mProgressHandle.progress(++progress);
+                }
+            } finally {
+                if (mJournal != null) {
+                    // let the copies already made be committed after a cancel
+                    Thread.interrupted();
+                    commitClones();
+                    commitPendingDeletes();
+                    if (mInterrupted || mBudgetExhausted) {
+                        PlanFile.writeCheckpoint(planFile, mPosition, progress);
+                    }
+                }
+                mJournal = null;
+            }
+        }
+    }
+
+    /**
+     * Hashes the candidates added to the deduplicator and reports the result.
+     *
+     * @return false if interrupted
+     */
+    private boolean deduplicate() {
+        mInputOutput.getOut().println();
+        mOutputHelper.printSectionHeader(OutputLineMode.INFO, mBundle.getString("dedup"), null, null);
+        long start = System.nanoTime();
+
+        try {
+            mDeduplicator.deduplicate();
+        } catch (InterruptedIOException ex) {
+            return false;
+        }
+
+        mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("dedup_found").formatted(
+                mDeduplicator.getDuplicateCount(),
+                FileUtils.byteCountToDisplaySize(mDeduplicator.getDuplicateBytes()),
+                (System.nanoTime() - start) / 1E9
+        ));
+
+        return true;
+    }
+
+    /**
+     * Feeds the scanned sources of a plan file to the deduplicator, sizes in a
+     * first pass and candidates in a second.
+     *
+     * @return false if interrupted
+     */
+    private boolean deduplicate(File planFile) throws IOException {
+        try (var reader = new PlanReader(planFile)) {
+            for (var source = reader.nextSource(); source != null; source = reader.nextSource()) {
+                mDeduplicator.addSize(source.size());
+            }
+        }
+
+        try (var reader = new PlanReader(planFile)) {
+            int ordinal = 0;
+            for (var source = reader.nextSource(); source != null; source = reader.nextSource()) {
+                mDeduplicator.addCandidate(ordinal++, source.getFile(), source.size());
+            }
+        }
+
+        return deduplicate();
+    }
+
+    private void failPlan(String message) {
+        mInputOutput.getErr().println(message);
+        mInterrupted = true;
+        jobEnded(OutputLineMode.ERROR, Dict.JOB_FAILED.toString());
+    }
+
+    private boolean generateFileList(PlanSink sink) {
+        long scanStart = System.nanoTime();
+        mInputOutput.getOut().println();
+        mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.GENERATING_FILELIST.toString(), "", mTask.getSourceDirsAsString());
+
+        var sourceDirs = mTask.getSourceDirs();
+        boolean completed = sourceDirs.size() == 1 ? scan(sourceDirs.get(0), sink) : scanConcurrently(sourceDirs, sink);
+        if (!completed) {
+            return false;
+        }
+
+        mStatistics.addScanNanos(System.nanoTime() - scanStart);
+
+        return true;
+    }
+
+    /**
+     * Tries the date sources of the task in order and returns the first date
+     * found. A source that can't read the file counts as not giving a date,
+     * and files whose metadata ran out of time or bytes are quarantined.
+     */
+    private Date getDate(File sourceFile, long modified, long created) throws IOException, ImageProcessingException {
+        var dateSources = mTask.getDateSources();
+        ImageProcessingException failure = null;
+
+        for (var dateSource : dateSources) {
+            if (dateSource.readsContent() && mMetadataQuarantine.contains(sourceFile, modified)) {
+                mStatistics.addQuarantined();
+                failure = new ImageProcessingException(mBundle.getString("metadata_quarantined").formatted(sourceFile.getAbsolutePath()));
+                continue;
+            }
+
+            try {
+                var date = getDate(dateSource, sourceFile, modified, created);
+                mStatistics.addDateSourceHit(dateSource);
+
+                return date;
+            } catch (InterruptedIOException ex) {
+                throw ex;
+            } catch (MetadataGuard.LimitExceededException ex) {
+                mStatistics.addMetadataLimited();
+                mMetadataQuarantine.add(sourceFile, modified, ex.getMessage());
+                mInputOutput.getErr().println(getMessage(ex.getMessage()));
+                failure = new ImageProcessingException(ex.getMessage());
+            } catch (IOException ex) {
+                failure = new ImageProcessingException("%s: %s".formatted(sourceFile.getAbsolutePath(), ex.getMessage()));
+            } catch (ImageProcessingException ex) {
+                failure = ex;
+            }
+        }
+
+        if (dateSources.size() > 1) {
+            throw new ImageProcessingException(mBundle.getString("date_not_found").formatted(sourceFile.getAbsolutePath()));
+        }
+
+        throw failure;
+    }
+
+    /**
+     * Reads the date from one source. File dates come from the attributes
+     * read by the scan.
+     */
+    private Date getDate(DateSource dateSource, File sourceFile, long modified, long created) throws IOException, ImageProcessingException {
+        switch (dateSource) {
+            case FILE_CREATED -> {
+                return new Date(created);
+            }
+            case FILE_MODIFIED -> {
+                return new Date(modified);
+            }
+            case FILE_NAME -> {
+                var date = mTask.getFilenameDateParser().parse(sourceFile.getName());
+                if (date == null) {
+                    throw new ImageProcessingException(mBundle.getString("filename_date_not_found").formatted(sourceFile.getAbsolutePath()));
+                }
+
+                return date;
+            }
+            case QUICKTIME_CREATED -> {
+                var date = mMetadataGuard.call(sourceFile, () -> QuickTimeDateReader.read(sourceFile));
+                if (date == null) {
+                    throw new ImageProcessingException(mBundle.getString("quicktime_date_not_found").formatted(sourceFile.getAbsolutePath()));
+                }
+
+                return date;
+            }
+            default -> {
+                Metadata metadata;
+                Directory directory = null;
+                Date date = null;
+                try {
+                    metadata = mMetadataGuard.call(sourceFile, () -> {
+                        try (var inputStream = mMetadataGuard.open(sourceFile)) {
+                            return ImageMetadataReader.readMetadata(inputStream, sourceFile.length());
+                        }
+                    });
+                    directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+                    date = directory.getDate(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+                } catch (NullPointerException | ImageProcessingException ex) {
+                    String message;
+                    if (directory == null) {
+                        message = String.format(Dict.Dialog.ERROR_EXIF_NOT_FOUND.toString(), sourceFile.getAbsolutePath());
+                    } else {
+                        message = String.format(Dict.Dialog.ERROR_FILE_FORMAT_NOT_SUPPORTED.toString(), sourceFile.getAbsolutePath());
+                    }
+
+                    throw new ImageProcessingException(message);
+                }
+
+                if (date == null) {
+                    throw new ImageProcessingException(String.format(Dict.Dialog.ERROR_EXIF_NOT_FOUND.toString(), sourceFile.getAbsolutePath()));
+                }
+
+                return date;
+            }
+        }
+    }
+
+    /**
+     * Returns a read of the date of the file that also times it for the slow
+     * file report.
+     */
+    private Callable<Date> getDateReader(File sourceFile, long modified, long created, long size) {
+        return () -> {
+            long dateStart = System.nanoTime();
+            var date = getDate(sourceFile, modified, created);
+            mStatistics.getDateTracker().add(sourceFile, System.nanoTime() - dateStart, size);
+
+            return date;
+        };
+    }
+
+    /**
+     * Returns the destination directory, the main or an extra one, that
+     * holds the file.
+     */
+    private File getDestDir(File destFile) {
+        var path = destFile.toPath();
+        for (var extraDestDir : mTask.getExtraDestDirs()) {
+            if (path.startsWith(extraDestDir.toPath())) {
+                return extraDestDir;
+            }
+        }
+
+        return mTask.getDestDir();
+    }
+
+    private File getDestFile(File sourceFile, Date date) {
+        var destDir = new File(mTask.getDestDir(), mTask.getDateFormat().format(date));
+        String destFilename = sourceFile.getName();
+        String base = FilenameUtils.getBaseName(destFilename);
+        String ext = FilenameUtils.getExtension(destFilename);
+        var caseBase = mTask.getCaseBase();
+        var caseExt = mTask.getCaseExt();
+
+        if (caseBase != NameCase.UNCHANGED || caseExt != NameCase.UNCHANGED) {
+            if (caseBase == NameCase.LOWER) {
+                base = base.toLowerCase();
+            } else if (caseBase == NameCase.UPPER) {
+                base = base.toUpperCase();
+            }
+
+            if (caseExt == NameCase.LOWER) {
+                ext = ext.toLowerCase();
+            } else if (caseBase == NameCase.UPPER) {
+                ext = ext.toUpperCase();
+            }
+
+            if (base.length() == 0) {
+                destFilename = String.format(".%s", ext);
+            } else if (ext.length() == 0) {
+                destFilename = base;
+            } else {
+                destFilename = String.format("%s.%s", base, ext);
+            }
+        }
+
+        return new File(destDir, destFilename);
+    }
+
+    /**
+     * Returns where the extra destinations get their copy of a file, at the
+     * same path relative to their root as the destination file.
+     */
+    private List<File> getExtraDestFiles(File destFile) {
+        var extraDestDirs = mTask.getExtraDestDirs();
+        if (extraDestDirs.isEmpty()) {
+            return List.of();
+        }
+
+        var relativePath = mTask.getDestDir().toPath().relativize(destFile.toPath());
+
+        return extraDestDirs.stream()
+                .map(extraDestDir -> extraDestDir.toPath().resolve(relativePath).toFile())
+                .toList();
+    }
+
+    private String getMessage(String message) {
+        if (mDryRun) {
+            message = String.format("dry-run: %s", message);
+        }
+
+        return Objects.toString(message, "");
+    }
+
+    /**
+     * Returns, per position in the sorted plan, the position of the file it
+     * is a sidecar of, or -1.
+     */
+    private int[] getSidecarPrimaries() {
+        var primaries = new int[mPlan.size()];
+        Arrays.fill(primaries, -1);
+        if (!mTask.isGroupSidecars()) {
+            return primaries;
+        }
+
+        var names = new ArrayList<String>();
+        int start = 0;
+        while (start < mPlan.size()) {
+            var dir = mPlan.getDir(mPlan.getSortedIndex(start));
+            names.clear();
+            int end = start;
+            while (end < mPlan.size() && mPlan.getDir(mPlan.getSortedIndex(end)).equals(dir)) {
+                names.add(mPlan.getName(mPlan.getSortedIndex(end++)));
+            }
+
+            var dirPrimaries = mTask.getSidecarGrouper().getPrimaries(names);
+            for (int i = 0; i < dirPrimaries.length; i++) {
+                if (dirPrimaries[i] >= 0) {
+                    primaries[start + i] = start + dirPrimaries[i];
+                }
+            }
+            start = end;
+        }
+
+        return primaries;
+    }
+
+    /**
+     * Returns the device of the source root holding the file.
+     */
+    private Object getSourceDevice(File sourceFile) {
+        var path = sourceFile.toPath();
+        for (var entry : mSourceDevices.entrySet()) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+
+        return mIoThrottle.getDevice(sourceFile);
+    }
+
+    /**
+     * Checks whether another source in this run with the same content has
+     * already been transferred, and reports the file as a duplicate if so.
+     */
+    private boolean isDuplicate(int ordinal, File sourceFile) {
+        var original = mDeduplicator.getOriginal(ordinal);
+        if (original == null) {
+            return false;
+        }
+
+        mInputOutput.getOut().println(getMessage(mBundle.getString("dedup_skip").formatted(sourceFile.getAbsolutePath(), original.getAbsolutePath())));
+
+        return true;
+    }
+
+    private boolean isClonePending(File destFile) {
+        return mPendingClones.stream().anyMatch(pendingClone -> pendingClone.destFile().equals(destFile));
+    }
+
+    /**
+     * Checks whether the run budget ran out of time before the transfers
+     * started, and notes it if so.
+     */
+    private boolean isOutOfTime() {
+        if (!mBudgetExhausted && mBudget.isExhausted(System.currentTimeMillis() - mStatistics.getStarted(), 0, 0)) {
+            mBudgetExhausted = true;
+        }
+
+        return mBudgetExhausted;
+    }
+
+    /**
+     * Checks for a plan left by an interrupted run, which is continued rather
+     * than started over in memory.
+     */
+    private boolean isPlanLeft() {
+        var state = PlanFile.readState(StorageManager.getInstance().getPlanFile(mTask), mTask.getPlanKey());
+
+        return state == PlanFile.State.SCANNED || state == PlanFile.State.PLANNED;
+    }
+
+    /**
+     * Checks whether an earlier, interrupted run already transferred the file.
+     */
+    private boolean isTransferred(File sourceFile, File destFile, long size, Command command) {
+        if (!destFile.isFile() || destFile.length() != size) {
+            return false;
+        }
+
+        return command != Command.MOVE || !sourceFile.exists();
+    }
+
+    private void jobEnded(OutputLineMode outputLineMode, String action) {
+        mMainFoldHandle.finish();
+        mStatusDisplayer.setStatusText(action);
+        printStatistics();
+        mOutputHelper.printSummary(outputLineMode, action, Dict.TASK.toString());
+    }
+
+    /**
+     * Streams the scanned sources, extracts their dates and appends a target
+     * per file. Dates are read ahead, as many at a time as the options allow.
+     *
+     * @return false if interrupted
+     */
+    private boolean planTargets(File planFile, PlanWriter writer) throws IOException {
+        mProgressHandle.switchToDeterminate(writer.getCount());
+        int plannedCount = writer.getPlannedCount();
+        int progress = 0;
+        // the last directory boundary, where planning can be continued
+        long checkpoint = writer.getPosition();
+        int checkpointCount = plannedCount;
+        String dir = null;
+        boolean complete = false;
+
+        try (var reader = new PlanReader(planFile);
+                var targetReader = new PlanReader(planFile);
+                var readAhead = new DateReadAhead<>(new PlannedSourceIterator(reader), Options.getInstance().getMetadataReaders(), (PlannedSource planned) -> {
+                    if (planned.mOrdinal < plannedCount || planned.mPrimary != null || mDeduplicator.getOriginal(planned.mOrdinal) != null) {
+                        return null;
+                    }
+
+                    var source = planned.mSource;
+                    return getDateReader(source.getFile(), source.modified(), source.created(), source.size());
+                })) {
+            targetReader.seekTargets();
+            var target = plannedCount > 0 ? targetReader.nextTarget() : null;
+
+            while (readAhead.hasNext()) {
+                if (isOutOfTime()) {
+                    break;
+                }
+
+                var entry = readAhead.next();
+                var planned = entry.getItem();
+                var source = planned.mSource;
+                var sourceFile = source.getFile();
+                mProgressHandle.progress(sourceFile.getName());
+                if (!source.dir().equals(dir) && progress >= plannedCount) {
+                    dir = source.dir();
+                    checkpoint = writer.getPosition();
+                    checkpointCount = progress;
+                }
+
+                if (planned.mOrdinal < plannedCount) {
+                    // planned by an earlier run, only what was transferred is needed for the dedup
+                    if (target != null && target.source().equals(sourceFile.getPath())) {
+                        if (planned.mPrimary == null) {
+                            mDeduplicator.setTransferred(planned.mOrdinal);
+                        }
+                        target = targetReader.nextTarget();
+                    }
+                    mProgressHandle.progress(++progress);
+                    continue;
+                }
+
+                if (planned.mPrimary == null && isDuplicate(planned.mOrdinal, sourceFile)) {
+                    mProgressHandle.progress(++progress);
+                    continue;
+                }
+
+                try {
+                    try {
+                        awaitTurn();
+                    } catch (InterruptedException ex) {
+                        return false;
+                    }
+
+                    Date date;
+                    if (planned.mPrimary != null) {
+                        if (planned.mPrimary.mDate == FilePlan.NO_DATE) {
+                            mInputOutput.getOut().println(getMessage(mBundle.getString("sidecar_skip").formatted(sourceFile.getAbsolutePath())));
+                            mProgressHandle.progress(++progress);
+                            continue;
+                        }
+                        date = new Date(planned.mPrimary.mDate);
+                        mStatistics.addSidecar();
+                    } else {
+                        date = entry.getDate();
+                        if (!mTask.getDateRange().contains(date.getTime())) {
+                            mStatistics.addOutOfRange(false);
+                            mProgressHandle.progress(++progress);
+                            continue;
+                        }
+                    }
+                    planned.mDate = date.getTime();
+                    var destFile = getDestFile(sourceFile, date);
+
+                    writer.addTarget(new PlanFile.Target(
+                            sourceFile.getPath(),
+                            destFile.getPath(),
+                            mTask.getCommand(),
+                            source.size(),
+                            source.modified(),
+                            date.getTime()
+                    ));
+                    if (planned.mPrimary == null) {
+                        mDeduplicator.setTransferred(planned.mOrdinal);
+                    }
+                } catch (InterruptedIOException ex) {
+                    mInterrupted = true;
+                    return false;
+                } catch (ImageProcessingException | NullPointerException ex) {
+                    mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                    mStatistics.addError();
+                }
+
+                mProgressHandle.progress(++progress);
+            }
+            complete = !mBudgetExhausted;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            if (!complete) {
+                writer.writePlanningCheckpoint(checkpoint, checkpointCount);
+            }
+        }
+
+        return true;
+    }
+
+    private void printSlowest(String title, SlowFileTracker tracker) {
+        if (tracker.getCount() == 0) {
+            return;
+        }
+
+        mInputOutput.getOut().println(title);
+        for (var entry : tracker.getSlowest()) {
+            mInputOutput.getOut().println("%10.3f s %12s  %s".formatted(
+                    entry.nanos() / 1E9,
+                    FileUtils.byteCountToDisplaySize(entry.size()),
+                    entry.path()
+            ));
+        }
+
+        var outliers = tracker.getOutliers();
+        if (!outliers.isEmpty()) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_outliers"));
+            for (var outlier : outliers) {
+                mInputOutput.getOut().println("%10d   %s".formatted(outlier.getValue(), outlier.getKey()));
+            }
+        }
+
+        mInputOutput.getOut().println();
+    }
+
+    private void printStatistics() {
+        mInputOutput.getOut().println();
+        mInputOutput.getOut().println(mBundle.getString("statistics_summary").formatted(
+                mStatistics.getFiles(),
+                FileUtils.byteCountToDisplaySize(mStatistics.getBytes()),
+                mStatistics.getErrors(),
+                mStatistics.getScanNanos() / 1E9,
+                mStatistics.getDateNanos() / 1E9,
+                mStatistics.getTransferNanos() / 1E9
+        ));
+        if (mStatistics.getVerifyNanos() > 0) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_verify").formatted(
+                    mStatistics.getVerifyNanos() / 1E9,
+                    100.0 * mStatistics.getVerifyNanos() / Math.max(1, mStatistics.getTransferNanos())
+            ));
+        }
+        if (mStatistics.getSidecars() > 0) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_sidecars").formatted(mStatistics.getSidecars()));
+        }
+        if (mStatistics.getMetadataLimited() > 0 || mStatistics.getQuarantined() > 0) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_quarantine").formatted(
+                    mStatistics.getMetadataLimited(),
+                    mStatistics.getQuarantined()
+            ));
+        }
+        if (mStatistics.getOutOfRange() > 0) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_out_of_range").formatted(
+                    mStatistics.getOutOfRange(),
+                    mStatistics.getOutOfRangeScanned()
+            ));
+        }
+        if (mTask.getDateSources().size() > 1) {
+            mInputOutput.getOut().println(mBundle.getString("statistics_date_sources").formatted(
+                    mTask.getDateSources().stream()
+                            .map(dateSource -> "%s %d".formatted(dateSource, mStatistics.getDateSourceHits(dateSource)))
+                            .collect(Collectors.joining(", "))
+            ));
+        }
+        if (!mTask.getExtraDestDirs().isEmpty()) {
+            var destDirs = new ArrayList<File>();
+            destDirs.add(mTask.getDestDir());
+            destDirs.addAll(mTask.getExtraDestDirs());
+            mInputOutput.getOut().println(mBundle.getString("statistics_dest_bytes").formatted(
+                    destDirs.stream()
+                            .map(destDir -> "%s %s".formatted(destDir.getAbsolutePath(), FileUtils.byteCountToDisplaySize(mStatistics.getDestBytes(destDir))))
+                            .collect(Collectors.joining(", "))
+            ));
+        }
+        mInputOutput.getOut().println();
+        printSlowest(mBundle.getString("statistics_slowest_date"), mStatistics.getDateTracker());
+        printSlowest(mBundle.getString("statistics_slowest_transfer"), mStatistics.getTransferTracker());
     }
 
-    @Override
-    public void run() {
-        var allowToCancel = (Cancellable) () -> {
-            mExecutorThread.interrupt();
-            mInterrupted = true;
-            mProgressHandle.finish();
-            ExecutorManager.getInstance().getExecutors().remove(mTask.getId());
-            jobEnded(OutputLineMode.WARNING, Dict.CANCELED.toString());
+    /**
+     * Transfers one file to the destination and the extra destinations, and
+     * logs the outcome per destination.
+     */
+    private Outcome process(File sourceFile, File destFile, long size, Command command) throws IOException {
+        var destFiles = new ArrayList<File>();
+        destFiles.add(destFile);
+        destFiles.addAll(getExtraDestFiles(destFile));
+        var pending = new ArrayList<File>();
+        int satisfied = 0;
+        boolean destSatisfied = false;
 
-            return true;
-        };
+        // a queued clone must exist before its destination is checked again
+        if (mPendingClones.size() >= CLONE_BATCH_SIZE || destFiles.stream().anyMatch(this::isClonePending)) {
+            commitClones();
+        }
 
-        mProgressHandle = ProgressHandle.createHandle(mTask.getName(), allowToCancel);
-        mProgressHandle.start();
-        mProgressHandle.switchToIndeterminate();
+        for (var file : destFiles) {
+            var destDir = file.getParentFile();
 
-        mExecutorThread = new Thread(() -> {
-            mOutputHelper.start();
-            mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.START.toString(), Dict.TASK.toLower(), mTask.getName());
-            mMainFoldHandle = IOFolding.startFold(mInputOutput, true);
+            if (destDir.isFile()) {
+                mInputOutput.getOut().println(String.format(Dict.Dialog.ERROR_DEST_DIR_IS_FILE.toString(), destDir.getAbsolutePath()));
+                return Outcome.STOP;
+            } else if (!destDir.exists() && !mDryRun) {
+                FileUtils.forceMkdir(destDir);
+            }
 
-            if (!mTask.isValid()) {
-                mInputOutput.getErr().println(mTask.getValidationError());
-                jobEnded(OutputLineMode.ERROR, Dict.INVALID_INPUT.toString());
-                mInputOutput.getErr().println(String.format("\n\n%s", Dict.JOB_FAILED.toString()));
+            String log = null;
+
+            if (mResuming && isTransferred(sourceFile, file, size, command)) {
+                log = mBundle.getString("plan_skip_done").formatted(file.getAbsolutePath());
+                satisfied++;
+                destSatisfied |= file == destFile;
+            } else if (file.exists() && mTask.isCompareExisting() && mContentComparator.isIdentical(sourceFile, file)) {
+                log = mBundle.getString("compare_identical").formatted(file.getAbsolutePath());
+                satisfied++;
+                destSatisfied |= file == destFile;
+            } else if (mClaimedDestFiles.contains(file)) {
+                // another source, from this or another root, got here first
+                log = mBundle.getString("dest_collision").formatted(file.getAbsolutePath());
+                mStatistics.addError();
+            } else if (file.exists() && !mTask.isReplaceExisting()) {
+                if (mTask.isCompareExisting()) {
+                    log = mBundle.getString("compare_conflict").formatted(file.getAbsolutePath());
+                    mStatistics.addError();
+                } else {
+                    log = String.format(Dict.Dialog.ERROR_DEST_FILE_EXISTS.toString(), file.getAbsolutePath());
+                }
+            } else if (!destDir.canWrite() && !mDryRun) {
+                log = Dict.Dialog.ERROR_DEST_CANT_WRITE.toString();
+            } else {
+                pending.add(file);
+                mClaimedDestFiles.add(file);
+            }
 
+            if (log != null) {
+                mInputOutput.getOut().println(getMessage(log));
+            }
+        }
+
+        if (pending.isEmpty()) {
+            if (command == Command.MOVE && satisfied == destFiles.size() && !mDryRun) {
+                FileUtils.deleteQuietly(sourceFile);
+            }
+
+            return destSatisfied ? Outcome.DONE : Outcome.SKIPPED;
+        }
+
+        List<File> failed = List.of();
+        if (!mDryRun) {
+            mSourceDevice = getSourceDevice(sourceFile);
+            mThrottledDevices = new LinkedHashSet<>();
+            mThrottledDevices.add(mSourceDevice);
+            mThrottledDevices.addAll(mDestDevices);
+            try {
+                for (var device : mThrottledDevices) {
+                    mIoThrottle.acquireFile(device);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+
+            var primaryDestFile = pending.get(0) == destFile ? destFile : null;
+            var extraDestFiles = pending.subList(primaryDestFile == null ? 0 : 1, pending.size());
+            boolean keepSource = satisfied + pending.size() < destFiles.size();
+            long transferStart = System.nanoTime();
+            if (mJournal == null) {
+                failed = transfer(sourceFile, primaryDestFile, extraDestFiles, command, keepSource);
+            } else {
+                failed = transferJournaled(sourceFile, primaryDestFile, extraDestFiles, command, keepSource);
+            }
+            if (failed.size() < pending.size()) {
+                mStatistics.getTransferTracker().add(sourceFile, System.nanoTime() - transferStart, size);
+                mStatistics.addFile(size);
+            }
+        }
+
+        for (var file : pending) {
+            if (!failed.contains(file)) {
+                String cmd = file != destFile ? "cp" : switch (command) {
+                    case COPY ->
+                        "cp";
+                    case MOVE ->
+                        "mv";
+                    case LINK ->
+                        "ln";
+                    case CLONE ->
+                        "cp --reflink";
+                };
+                mInputOutput.getOut().println(getMessage(String.format("%s %s  %s", cmd, sourceFile.getAbsolutePath(), file.toString())));
+            }
+        }
+
+        return destSatisfied || (pending.contains(destFile) && !failed.contains(destFile)) ? Outcome.DONE : Outcome.SKIPPED;
+    }
+
+    private void processPlan() {
+        mInterrupted = !generateFileList(mPlan::add);
+        if (mInterrupted) {
+            return;
+        } else if (mPlan.isEmpty()) {
+            mInputOutput.getOut().println(Dict.FILELIST_EMPTY.toString());
+            return;
+        }
+
+        mPlan.sort();
+        mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("found_count").formatted(mPlan.size()));
+
+        if (mTask.isDeduplicate()) {
+            for (int index = 0; index < mPlan.size(); index++) {
+                mDeduplicator.addSize(mPlan.getSize(index));
+            }
+
+            for (int position = 0; position < mPlan.size(); position++) {
+                int index = mPlan.getSortedIndex(position);
+                mDeduplicator.addCandidate(position, mPlan.getFile(index), mPlan.getSize(index));
+            }
+
+            mInterrupted = !deduplicate();
+            if (mInterrupted) {
                 return;
             }
+        }
 
-            mInterrupted = !generateFileList();
+        mInputOutput.getOut().println("");
+        mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.PROCESSING.toString(), null, null);
 
-            if (!mInterrupted && !mFiles.isEmpty()) {
-                mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("found_count").formatted(mFiles.size()));
-                mInputOutput.getOut().println("");
-                mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.PROCESSING.toString(), null, null);
+        mProgressHandle.switchToDeterminate(mPlan.size());
+        int progress = 0;
+        var primaries = getSidecarPrimaries();
 
-                mProgressHandle.switchToDeterminate(mFiles.size());
-                int progress = 0;
-                var taskDateFormat = mTask.getDateFormat();
+        try (var readAhead = new DateReadAhead<>(Arrays.stream(SidecarGrouper.getOrder(primaries)).iterator(), Options.getInstance().getMetadataReaders(), (Integer position) -> {
+            if (primaries[position] >= 0 || mDeduplicator.getOriginal(position) != null) {
+                return null;
+            }
 
-                for (var sourceFile : mFiles) {
-                    mProgressHandle.progress(sourceFile.getName());
+            int index = mPlan.getSortedIndex(position);
+            return getDateReader(mPlan.getFile(index), mPlan.getModified(index), mPlan.getCreated(index), mPlan.getSize(index));
+        })) {
+            while (readAhead.hasNext()) {
+                var entry = readAhead.next();
+                int position = entry.getItem();
+                int index = mPlan.getSortedIndex(position);
+                var sourceFile = mPlan.getFile(index);
+                long size = mPlan.getSize(index);
+                int primary = primaries[position];
+                mProgressHandle.progress(sourceFile.getName());
+                if (primary < 0 && isDuplicate(position, sourceFile)) {
+                    mProgressHandle.progress(++progress);
+                    continue;
+                }
+
+                try {
                     try {
-                        try {
-                            TimeUnit.MILLISECONDS.sleep(1);
-                        } catch (InterruptedException ex) {
-                            mInterrupted = true;
-                            break;
+                        awaitTurn();
+                    } catch (InterruptedException ex) {
+                        mInterrupted = true;
+                        break;
+                    }
+
+                    Date date;
+                    if (primary >= 0) {
+                        long primaryDate = mPlan.getDate(mPlan.getSortedIndex(primary));
+                        if (primaryDate == FilePlan.NO_DATE) {
+                            mInputOutput.getOut().println(getMessage(mBundle.getString("sidecar_skip").formatted(sourceFile.getAbsolutePath())));
+                            mProgressHandle.progress(++progress);
+                            continue;
+                        }
+                        date = new Date(primaryDate);
+                        mStatistics.addSidecar();
+                    } else {
+                        date = entry.getDate();
+                        if (!mTask.getDateRange().contains(date.getTime())) {
+                            mStatistics.addOutOfRange(false);
+                            mProgressHandle.progress(++progress);
+                            continue;
                         }
+                    }
+                    mPlan.setDate(index, date.getTime());
 
-                        var fileDate = taskDateFormat.format(getDate(sourceFile));
-                        var destDir = new File(mTask.getDestDir(), fileDate);
+                    var outcome = process(sourceFile, getDestFile(sourceFile, date), size, mTask.getCommand());
+                    if (outcome == Outcome.STOP) {
+                        break;
+                    } else if (outcome == Outcome.DONE && primary < 0) {
+                        mDeduplicator.setTransferred(position);
+                    }
+                } catch (InterruptedIOException ex) {
+                    mInterrupted = true;
+                    break;
+                } catch (IOException | ImageProcessingException | NullPointerException ex) {
+                    mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                    mStatistics.addError();
+                }
 
-                        if (destDir.isFile()) {
-                            mInputOutput.getOut().println(String.format(Dict.Dialog.ERROR_DEST_DIR_IS_FILE.toString(), destDir.getAbsolutePath()));
-                            break;
-                        } else if (!destDir.exists() && !mDryRun) {
-                            FileUtils.forceMkdir(destDir);
-                        }
+                mProgressHandle.progress(++progress);
+            }
+        }
 
-                        String destFilename = sourceFile.getName();
-                        String base = FilenameUtils.getBaseName(destFilename);
-                        String ext = FilenameUtils.getExtension(destFilename);
-                        var caseBase = mTask.getCaseBase();
-                        var caseExt = mTask.getCaseExt();
-
-                        if (caseBase != NameCase.UNCHANGED || caseExt != NameCase.UNCHANGED) {
-                            if (caseBase == NameCase.LOWER) {
-                                base = base.toLowerCase();
-                            } else if (caseBase == NameCase.UPPER) {
-                                base = base.toUpperCase();
-                            }
+        try {
+            // the queued clones are logged already, let them be made after a cancel too
+            mInterrupted |= Thread.interrupted();
+            commitClones();
+        } catch (IOException ex) {
+            mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+            mStatistics.addError();
+        }
+    }
 
-                            if (caseExt == NameCase.LOWER) {
-                                ext = ext.toLowerCase();
-                            } else if (caseBase == NameCase.UPPER) {
-                                ext = ext.toUpperCase();
-                            }
+    /**
+     * Runs the task through a plan file instead of memory: scan to sources,
+     * extract dates to targets, then execute the targets. A completely planned
+     * file left by an interrupted run is picked up again without scanning or
+     * extracting dates, and a scanned one continues extracting dates from its
+     * planning checkpoint. Dry runs keep their plan so it can be applied
+     * later.
+     */
+    private void processPlanFile() {
+        var storageManager = StorageManager.getInstance();
+        var planFile = mDryRun ? storageManager.getDryRunPlanFile(mTask) : storageManager.getPlanFile(mTask);
+        var planKey = mTask.getPlanKey();
 
-                            if (base.length() == 0) {
-                                destFilename = String.format(".%s", ext);
-                            } else if (ext.length() == 0) {
-                                destFilename = base;
-                            } else {
-                                destFilename = String.format("%s.%s", base, ext);
-                            }
+        try {
+            var state = mDryRun ? null : PlanFile.readState(planFile, planKey);
+            if (state == PlanFile.State.PLANNED) {
+                mResuming = true;
+                mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("plan_resume").formatted(planFile.getAbsolutePath()));
+            } else {
+                try (var writer = state == PlanFile.State.SCANNED ? new PlanWriter(planFile) : new PlanWriter(planFile, planKey, mTask.getId())) {
+                    if (state == PlanFile.State.SCANNED) {
+                        mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("plan_continue").formatted(planFile.getAbsolutePath(), writer.getPlannedCount(), writer.getCount()));
+                    } else {
+                        mInterrupted = !generateFileList(writer::addSource);
+                        if (mInterrupted || stopOutOfTime("budget_exhausted_scanning")) {
+                            return;
+                        } else if (writer.getCount() == 0) {
+                            mInputOutput.getOut().println(Dict.FILELIST_EMPTY.toString());
+                            FileUtils.deleteQuietly(planFile);
+                            return;
                         }
 
-                        var destFile = new File(destDir, destFilename);
-                        String log;
-
-                        if (destFile.exists() && !mTask.isReplaceExisting()) {
-                            log = String.format(Dict.Dialog.ERROR_DEST_FILE_EXISTS.toString(), destFile.getAbsolutePath());
-                        } else {
-                            se.trixon.filebydate.core.parts.Command command = mTask.getCommand();
-                            String cmd = command == Command.COPY ? "cp" : "mv";
-                            log = String.format("%s %s  %s", cmd, sourceFile.getAbsolutePath(), destFile.toString());
-
-                            if (destDir.canWrite()) {
-                                if (!mDryRun) {
-                                    if (command == Command.COPY) {
-                                        FileUtils.copyFile(sourceFile, destFile);
-                                    } else if (command == Command.MOVE) {
-                                        if (File.listRoots().length > 1 || destFile.exists()) {
-                                            FileUtils.copyFile(sourceFile, destFile);
-                                            FileUtils.deleteQuietly(sourceFile);
-                                        } else {
-                                            FileUtils.moveFile(sourceFile, destFile);
-                                        }
-                                    }
-                                }
-                            } else if (!mDryRun) {
-                                log = Dict.Dialog.ERROR_DEST_CANT_WRITE.toString();
-                            }
+                        writer.endScan();
+                        mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("found_count").formatted(writer.getCount()));
+                    }
+
+                    if (mTask.isDeduplicate()) {
+                        mInterrupted = !deduplicate(planFile);
+                        if (mInterrupted || stopOutOfTime("budget_exhausted_planning")) {
+                            return;
                         }
+                    }
 
-                        mInputOutput.getOut().println(getMessage(log));
-                    } catch (IOException | ImageProcessingException | NullPointerException ex) {
-                        mInputOutput.getErr().println(getMessage(ex.getLocalizedMessage()));
+                    mInterrupted = !planTargets(planFile, writer);
+                    if (mInterrupted || stopOutOfTime("budget_exhausted_planning")) {
+                        return;
                     }
 
-                    mProgressHandle.progress(++progress);
+                    writer.endPlan();
                 }
             }
 
-            if (!mInterrupted) {
-                jobEnded(OutputLineMode.OK, Dict.DONE.toString());
+            executePlanFile(planFile);
+            if (mInterrupted || mBudgetExhausted) {
+                return;
+            }
 
-                if (!mDryRun) {
-                    mTask.setLastRun(System.currentTimeMillis());
-                    StorageManager.save();
-                }
+            if (mDryRun) {
+                mInputOutput.getOut().println();
+                mOutputHelper.println(OutputLineMode.INFO, mBundle.getString("plan_saved").formatted(planFile.getAbsolutePath()));
+            } else {
+                PlanFile.writeState(planFile, PlanFile.State.DONE);
+                FileUtils.deleteQuietly(planFile);
+                FileUtils.deleteQuietly(TransferJournal.getFile(planFile));
             }
+        } catch (IOException ex) {
+            mInputOutput.getErr().println(ex.getMessage());
+            mStatistics.addError();
+        }
+    }
 
-            mProgressHandle.finish();
-            ExecutorManager.getInstance().getExecutors().remove(mTask.getId());
-        }, "Executor");
+    /**
+     * Completes or rolls back a transfer that an interrupted run journaled.
+     *
+     * @return true if the target needs no further processing
+     */
+    private boolean recover(PlanFile.Target target) throws IOException {
+        var step = mJournal == null ? null : mJournal.getStep(mTargetIndex);
+        if (step == null) {
+            return false;
+        } else if (step == TransferJournal.Step.DELETED || (step == TransferJournal.Step.VERIFIED && target.command() != Command.MOVE)) {
+            mInputOutput.getOut().println(getMessage(mBundle.getString("plan_skip_done").formatted(target.dest())));
 
-        mExecutorThread.start();
+            return true;
+        }
+
+        var sourceFile = target.getSourceFile();
+        var destFile = target.getDestFile();
+
+        if (step == TransferJournal.Step.VERIFIED) {
+            FileUtils.deleteQuietly(sourceFile);
+        } else if (sourceFile.exists()) {
+            // the copy may be incomplete, start over
+            FileUtils.deleteQuietly(destFile);
+            FileUtils.deleteQuietly(FileTransfer.getTempFile(destFile));
+            for (var extraDestFile : getExtraDestFiles(destFile)) {
+                FileUtils.deleteQuietly(FileTransfer.getTempFile(extraDestFile));
+            }
+
+            return false;
+        } else if (!destFile.exists()) {
+            throw new IOException(mBundle.getString("journal_lost").formatted(sourceFile.getAbsolutePath()));
+        }
+
+        mJournal.append(mTargetIndex, TransferJournal.Step.DELETED);
+        mInputOutput.getOut().println(getMessage(mBundle.getString("plan_skip_done").formatted(target.dest())));
+
+        return true;
     }
 
-    private boolean generateFileList() {
-        mInputOutput.getOut().println();
-        mOutputHelper.printSectionHeader(OutputLineMode.INFO, Dict.GENERATING_FILELIST.toString(), "", mTask.getSourceDirAsString());
+    /**
+     * Moves a file by renaming it, if it goes to the destination only and
+     * both are on the same file system.
+     *
+     * @return false if the file has to be copied
+     */
+    private boolean rename(File sourceFile, File destFile, List<File> extraDestFiles, Command command) throws IOException {
+        if (command != Command.MOVE || destFile == null || !extraDestFiles.isEmpty()
+                || File.listRoots().length > 1 || destFile.exists()) {
+            return false;
+        }
+
+        // the hash is cached for the source, which is gone after the rename
+        var hash = mManifest == null ? null : HashCache.getInstance().get(sourceFile);
+        if (!FileTransfer.rename(sourceFile, destFile)) {
+            return false;
+        }
+
+        if (hash != null) {
+            mManifest.add(destFile, hash);
+            HashCache.getInstance().put(destFile, hash);
+        }
+
+        return true;
+    }
 
+    /**
+     * Walks a source root into the sink.
+     *
+     * @return false if interrupted
+     */
+    private boolean scan(File sourceDir, PlanSink sink) {
         var fileVisitOptions = EnumSet.noneOf(FileVisitOption.class);
         if (mTask.isFollowLinks()) {
             fileVisitOptions = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
         }
 
-        var file = mTask.getSourceDir();
-        if (file.isDirectory()) {
-            var fileVisitor = new FileVisitor();
+        if (sourceDir.isDirectory()) {
+            var fileVisitor = new FileVisitor(sourceDir.toPath(), sink);
+            int maxDepth = 1;
+            if (mTask.isRecursive()) {
+                maxDepth = mTask.getMaxDepth() > 0 ? mTask.getMaxDepth() : Integer.MAX_VALUE;
+            }
             try {
-                if (mTask.isRecursive()) {
-                    Files.walkFileTree(file.toPath(), fileVisitOptions, Integer.MAX_VALUE, fileVisitor);
-                } else {
-                    Files.walkFileTree(file.toPath(), fileVisitOptions, 1, fileVisitor);
-                }
+                Files.walkFileTree(sourceDir.toPath(), fileVisitOptions, maxDepth, fileVisitor);
 
                 if (fileVisitor.isInterrupted()) {
                     return false;
@@ -258,76 +1538,221 @@ public class Executor implements Runnable {
             } catch (IOException ex) {
                 mInputOutput.getErr().println(ex.getMessage());
             }
-        } else if (file.isFile() && mTask.getPathMatcher().matches(file.toPath().getFileName())) {
-            mFiles.add(file);
-        }
-
-        if (mFiles.isEmpty()) {
-            mInputOutput.getOut().println(Dict.FILELIST_EMPTY.toString());
-        } else {
-            Collections.sort(mFiles);
+        } else if (sourceDir.isFile() && mTask.getPathFilter().acceptFile(sourceDir.getName())) {
+            try {
+                var attrs = Files.readAttributes(sourceDir.toPath(), BasicFileAttributes.class);
+                if (!mTask.getAttributeFilter().acceptFile(sourceDir.getName(), attrs)) {
+                    return true;
+                } else if (!mTask.getDateRange().isPossible(mTask.getDateSources(), attrs)) {
+                    mStatistics.addOutOfRange(true);
+                } else {
+                    sink.add(sourceDir.getParent(), sourceDir.getName(), attrs.size(), attrs.lastModifiedTime().toMillis(), attrs.creationTime().toMillis());
+                }
+            } catch (IOException ex) {
+                mInputOutput.getErr().println(ex.getMessage());
+            }
         }
 
         return true;
     }
 
-    private Date getDate(File sourceFile) throws IOException, ImageProcessingException {
-        var date = new Date(System.currentTimeMillis());
-        var dateSource = mTask.getDateSource();
+    /**
+     * Walks the source roots in parallel, one walker per root, so roots on
+     * different devices are read at the same time. The walkers hand their
+     * files over in batches and the sink is fed on this thread only.
+     *
+     * @return false if interrupted
+     */
+    private boolean scanConcurrently(List<File> sourceDirs, PlanSink sink) {
+        var queue = new ArrayBlockingQueue<List<PlanFile.Source>>(SCAN_QUEUE_CAPACITY);
+        var pool = Executors.newFixedThreadPool(sourceDirs.size(), runnable -> {
+            var thread = new Thread(runnable, "SourceScanner");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        if (null != dateSource) {
-            switch (dateSource) {
-                case FILE_CREATED -> {
-                    var attr = Files.readAttributes(sourceFile.toPath(), BasicFileAttributes.class);
-                    date = new Date(attr.creationTime().toMillis());
-                }
-                case FILE_MODIFIED -> {
-                    var attr = Files.readAttributes(sourceFile.toPath(), BasicFileAttributes.class);
-                    date = new Date(attr.lastModifiedTime().toMillis());
+        var futures = new ArrayList<Future<Boolean>>();
+        for (var sourceDir : sourceDirs) {
+            futures.add(pool.submit(() -> {
+                var batcher = new ScanBatcher(queue);
+                boolean completed = scan(sourceDir, batcher);
+                batcher.flush();
+
+                return completed;
+            }));
+        }
+
+        try {
+            while (true) {
+                boolean walked = futures.stream().allMatch(Future::isDone);
+                var batch = queue.poll(SCAN_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    if (walked) {
+                        break;
+                    }
+                    continue;
                 }
-                case EXIF_ORIGINAL -> {
-                    Metadata metadata;
-                    Directory directory = null;
-                    try {
-                        metadata = ImageMetadataReader.readMetadata(sourceFile);
-                        directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
-                        date = directory.getDate(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
-                    } catch (NullPointerException | ImageProcessingException ex) {
-                        String message;
-                        if (directory == null) {
-                            message = String.format(Dict.Dialog.ERROR_EXIF_NOT_FOUND.toString(), sourceFile.getAbsolutePath());
-                        } else {
-                            message = String.format(Dict.Dialog.ERROR_FILE_FORMAT_NOT_SUPPORTED.toString(), sourceFile.getAbsolutePath());
-                        }
 
-                        throw new ImageProcessingException(message);
+                for (var source : batch) {
+                    try {
+                        sink.add(source.dir(), source.name(), source.size(), source.modified(), source.created());
+                    } catch (IOException ex) {
+                        mInputOutput.getErr().println(ex.getMessage());
                     }
                 }
             }
+
+            boolean completed = true;
+            for (var future : futures) {
+                try {
+                    completed &= future.get();
+                } catch (ExecutionException ex) {
+                    mInputOutput.getErr().println(ex.getCause().getMessage());
+                    mStatistics.addError();
+                }
+            }
+
+            return completed;
+        } catch (InterruptedException ex) {
+            return false;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reports a run budget that ran out before the plan was complete, with a
+     * message telling where the next run picks up.
+     *
+     * @return true if the run is out of time
+     */
+    private boolean stopOutOfTime(String key) {
+        if (!isOutOfTime()) {
+            return false;
         }
 
-        return date;
+        mOutputHelper.println(OutputLineMode.WARNING, mBundle.getString(key));
+
+        return true;
     }
 
-    private String getMessage(String message) {
-        if (mDryRun) {
-            message = String.format("dry-run: %s", message);
+    private void stopPrometheusExporter() {
+        if (mPrometheusExporter != null) {
+            mPrometheusExporter.stop();
         }
+    }
 
-        return Objects.toString(message, "");
+    /**
+     * Transfers a file to the destination, which is null if it is skipped,
+     * and to the extra destinations. The source of a move is kept if a
+     * destination is missing it.
+     *
+     * @return the destinations that failed
+     */
+    private List<File> transfer(File sourceFile, File destFile, List<File> extraDestFiles, Command command, boolean keepSource) throws IOException {
+        if (!keepSource && rename(sourceFile, destFile, extraDestFiles, command)) {
+            return List.of();
+        }
+
+        var failed = copyOrLink(sourceFile, destFile, extraDestFiles, command);
+        if (command == Command.MOVE && !keepSource && failed.isEmpty()) {
+            FileUtils.deleteQuietly(sourceFile);
+        }
+
+        return failed;
     }
 
-    private void jobEnded(OutputLineMode outputLineMode, String action) {
-        mMainFoldHandle.finish();
-        mStatusDisplayer.setStatusText(action);
-        mOutputHelper.printSummary(outputLineMode, action, Dict.TASK.toString());
+    /**
+     * Transfers a file with every step journaled. Sources of copied moves are
+     * deleted in batches, after the copies and the journal have been synced.
+     *
+     * @return the destinations that failed
+     */
+    private List<File> transferJournaled(File sourceFile, File destFile, List<File> extraDestFiles, Command command, boolean keepSource) throws IOException {
+        mJournal.append(mTargetIndex, TransferJournal.Step.INTENT);
+
+        if (!keepSource && rename(sourceFile, destFile, extraDestFiles, command)) {
+            mJournal.append(mTargetIndex, TransferJournal.Step.DELETED);
+            return List.of();
+        }
+
+        long size = sourceFile.length();
+        var failed = copyOrLink(sourceFile, destFile, extraDestFiles, command);
+        if (!failed.isEmpty()) {
+            // left at INTENT, so a resumed run starts the file over
+            return failed;
+        } else if (destFile != null && isClonePending(destFile)) {
+            // journaled once the batch is cloned
+            return failed;
+        }
+
+        mJournal.append(mTargetIndex, TransferJournal.Step.COPIED);
+        var destFiles = new ArrayList<File>();
+        if (destFile != null) {
+            destFiles.add(destFile);
+        }
+        destFiles.addAll(extraDestFiles);
+        for (var file : destFiles) {
+            if (file.length() != size) {
+                throw new IOException(mBundle.getString("journal_size_mismatch").formatted(file.getAbsolutePath()));
+            }
+        }
+
+        if (command != Command.MOVE) {
+            mJournal.append(mTargetIndex, TransferJournal.Step.VERIFIED);
+        } else if (keepSource) {
+            // nothing is left to do, the source stays
+            mJournal.append(mTargetIndex, TransferJournal.Step.DELETED);
+        } else {
+            mPendingDeletes.add(new PendingDelete(mTargetIndex, sourceFile, destFiles));
+            if (mPendingDeletes.size() >= COMMIT_BATCH_SIZE || System.nanoTime() - mLastCommit > COMMIT_INTERVAL_NANOS) {
+                commitPendingDeletes();
+            }
+        }
+
+        return failed;
+    }
+
+    /**
+     * Checks that every source in the plan still has the size and
+     * modification time it had when the plan was made. Sources already
+     * journaled by an interrupted apply are left to the recovery.
+     *
+     * @return the first changed source, or null if none changed
+     */
+    private String verifyPlanFile(File planFile) throws IOException {
+        try (var reader = new PlanReader(planFile); var journal = new TransferJournal(TransferJournal.getFile(planFile), reader.getId())) {
+            reader.seekCheckpoint();
+            for (int index = reader.getCheckpointCount(); ; index++) {
+                var target = reader.nextTarget();
+                if (target == null) {
+                    break;
+                }
+
+                var sourceFile = target.getSourceFile();
+                if (journal.getStep(index) == null
+                        && (!sourceFile.isFile() || sourceFile.length() != target.size() || sourceFile.lastModified() != target.modified())) {
+                    return sourceFile.getAbsolutePath();
+                }
+            }
+        }
+
+        return null;
     }
 
     public class FileVisitor extends SimpleFileVisitor<Path> {
 
+        private final AttributeFilter mAttributeFilter = mTask.getAttributeFilter();
+        private final DateRange mDateRange = mTask.getDateRange();
+        private final List<DateSource> mDateSources = mTask.getDateSources();
+        private final PathFilter mFilter = mTask.getPathFilter();
         private boolean mInterrupted;
+        private final Path mRoot;
+        private final PlanSink mSink;
 
-        public FileVisitor() {
+        public FileVisitor(Path root, PlanSink sink) {
+            mRoot = root;
+            mSink = sink;
         }
 
         public boolean isInterrupted() {
@@ -337,26 +1762,52 @@ public class Executor implements Runnable {
         @Override
         public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
             try {
-                TimeUnit.NANOSECONDS.sleep(1);
+                awaitTurn();
             } catch (InterruptedException ex) {
                 mInterrupted = true;
                 return FileVisitResult.TERMINATE;
             }
 
+            if (isOutOfTime()) {
+                return FileVisitResult.TERMINATE;
+            }
+
+            if (!dir.equals(mRoot)) {
+                var name = dir.getFileName().toString();
+                if (!mFilter.acceptDirectory(name) || !mAttributeFilter.acceptDirectory(name, attrs)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+            }
+
             mInputOutput.getOut().println(dir.toString());
             var filePaths = dir.toFile().list();
 
             if (filePaths != null && filePaths.length > 0) {
+                Arrays.sort(filePaths);
+                var dirName = dir.toString();
                 for (var fileName : filePaths) {
                     try {
-                        TimeUnit.NANOSECONDS.sleep(1);
+                        awaitTurn();
                     } catch (InterruptedException ex) {
                         mInterrupted = true;
                         return FileVisitResult.TERMINATE;
                     }
-                    var file = new File(dir.toFile(), fileName);
-                    if (file.isFile() && mTask.getPathMatcher().matches(file.toPath().getFileName())) {
-                        mFiles.add(file);
+                    if (isOutOfTime()) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    if (mFilter.acceptFile(fileName)) {
+                        try {
+                            var fileAttrs = Files.readAttributes(dir.resolve(fileName), BasicFileAttributes.class);
+                            if (!fileAttrs.isRegularFile() || !mAttributeFilter.acceptFile(fileName, fileAttrs)) {
+                                continue;
+                            } else if (!mDateRange.isPossible(mDateSources, fileAttrs)) {
+                                mStatistics.addOutOfRange(true);
+                            } else {
+                                mSink.add(dirName, fileName, fileAttrs.size(), fileAttrs.lastModifiedTime().toMillis(), fileAttrs.creationTime().toMillis());
+                            }
+                        } catch (IOException ex) {
+                            //nvm - removed or unreadable since listed
+                        }
                     }
                 }
             }
@@ -370,4 +1821,140 @@ public class Executor implements Runnable {
         }
     }
 
+    /**
+     * How processing a file ended.
+     */
+    private enum Outcome {
+        /**
+         * The file is at its destination, or would be in a dry run.
+         */
+        DONE,
+        /**
+         * The file didn't reach its destination.
+         */
+        SKIPPED,
+        /**
+         * The destination can't be used and the run has to stop.
+         */
+        STOP;
+    }
+
+    /**
+     * A scanned source on its way to a target. A sidecar refers to its
+     * primary file, whose date it takes once the primary is dated.
+     */
+    private static class PlannedSource {
+
+        private long mDate = FilePlan.NO_DATE;
+        private final int mOrdinal;
+        private final PlannedSource mPrimary;
+        private final PlanFile.Source mSource;
+
+        public PlannedSource(PlanFile.Source source, int ordinal, PlannedSource primary) {
+            mSource = source;
+            mOrdinal = ordinal;
+            mPrimary = primary;
+        }
+    }
+
+    /**
+     * Reads the sources of a plan file a directory at a time, so sidecars
+     * can follow their primary file. Read errors are thrown as
+     * {@link UncheckedIOException}.
+     */
+    private class PlannedSourceIterator implements Iterator<PlannedSource> {
+
+        private final ArrayDeque<PlannedSource> mDirSources = new ArrayDeque<>();
+        private PlanFile.Source mNext;
+        private int mOrdinal;
+        private final PlanReader mReader;
+
+        public PlannedSourceIterator(PlanReader reader) throws IOException {
+            mReader = reader;
+            mNext = reader.nextSource();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !mDirSources.isEmpty() || mNext != null;
+        }
+
+        @Override
+        public PlannedSource next() {
+            if (mDirSources.isEmpty()) {
+                readDir();
+            }
+
+            return mDirSources.remove();
+        }
+
+        private void readDir() {
+            var sources = new ArrayList<PlanFile.Source>();
+            var dir = mNext.dir();
+            try {
+                do {
+                    sources.add(mNext);
+                    mNext = mReader.nextSource();
+                } while (mNext != null && mNext.dir().equals(dir));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            var primaries = mTask.getSidecarGrouper().getPrimaries(sources.stream().map(PlanFile.Source::name).toList());
+            var planned = new PlannedSource[sources.size()];
+            for (int i : SidecarGrouper.getOrder(primaries)) {
+                planned[i] = new PlannedSource(sources.get(i), mOrdinal + i, primaries[i] < 0 ? null : planned[primaries[i]]);
+                mDirSources.add(planned[i]);
+            }
+            mOrdinal += sources.size();
+        }
+    }
+
+    /**
+     * Collects what a walker finds into batches of one directory, so the
+     * files of a directory stay together when several walkers feed the
+     * sink.
+     */
+    private static class ScanBatcher implements PlanSink {
+
+        private ArrayList<PlanFile.Source> mBatch = new ArrayList<>();
+        private final BlockingQueue<List<PlanFile.Source>> mQueue;
+
+        public ScanBatcher(BlockingQueue<List<PlanFile.Source>> queue) {
+            mQueue = queue;
+        }
+
+        @Override
+        public void add(String dir, String name, long size, long modified, long created) throws IOException {
+            if (!mBatch.isEmpty() && !mBatch.get(0).dir().equals(dir)) {
+                flush();
+            }
+
+            mBatch.add(new PlanFile.Source(dir, name, size, modified, created));
+        }
+
+        public void flush() throws InterruptedIOException {
+            if (mBatch.isEmpty()) {
+                return;
+            }
+
+            try {
+                mQueue.put(mBatch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+
+            mBatch = new ArrayList<>();
+        }
+    }
+
+    private record PendingClone(int index, File sourceFile, File destFile) {
+
+    }
+
+    private record PendingDelete(int index, File sourceFile, List<File> destFiles) {
+
+    }
+
 }
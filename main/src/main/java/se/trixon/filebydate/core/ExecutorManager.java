@@ -15,6 +15,7 @@
  */
 package se.trixon.filebydate.core;
 
+import java.io.File;
 import java.util.HashMap;
 import javafx.scene.Scene;
 import javax.swing.JButton;
@@ -42,10 +43,34 @@ public class ExecutorManager {
     private ExecutorManager() {
     }
 
+    public void apply(Task task, File planFile, RunBudget budget) {
+        var executor = new Executor(task, planFile);
+        executor.setBudget(budget);
+        mExecutors.put(task.getId(), executor);
+        executor.run();
+    }
+
     public HashMap<String, Executor> getExecutors() {
         return mExecutors;
     }
 
+    public boolean isPaused(Task task) {
+        var executor = mExecutors.get(task.getId());
+
+        return executor != null && executor.isPaused();
+    }
+
+    public boolean isRunning(Task task) {
+        return mExecutors.containsKey(task.getId());
+    }
+
+    public void pause(Task task) {
+        var executor = mExecutors.get(task.getId());
+        if (executor != null) {
+            executor.pause();
+        }
+    }
+
     public void requestStart(Task task) {
         if (mExecutors.containsKey(task.getId())) {
             NbMessage.error(Dict.Dialog.TITLE_TASK_RUNNING.toString(), Dict.Dialog.MESSAGE_TASK_RUNNING.toString());
@@ -88,8 +113,20 @@ public class ExecutorManager {
         }
     }
 
+    public void resume(Task task) {
+        var executor = mExecutors.get(task.getId());
+        if (executor != null) {
+            executor.resume();
+        }
+    }
+
     public void start(Task task, boolean dryRun) {
+        start(task, dryRun, RunBudget.UNLIMITED);
+    }
+
+    public void start(Task task, boolean dryRun, RunBudget budget) {
         var executor = new Executor(task, dryRun);
+        executor.setBudget(budget);
         mExecutors.put(task.getId(), executor);
         executor.run();
     }
@@ -0,0 +1,620 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import com.sun.nio.file.ExtendedOpenOption;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Copies in chunks to a temporary file next to the destination, which is
+ * renamed into place when complete. An interrupt is noticed between chunks
+ * and removes the temporary file, so a cancel never leaves a partial
+ * destination behind. Links are made under the same temporary name and clones
+ * in a staging directory, both are renamed into place as well.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class FileTransfer {
+
+    private static final long CHUNK_SIZE = 1L << 20;
+    private static final String[] CLONE_COMMAND = getCloneCommand();
+    private static final Pattern CLONE_UNSUPPORTED = Pattern.compile("not supported|cross-device", Pattern.CASE_INSENSITIVE);
+    private static final String TEMP_SUFFIX = ".filebydate-part";
+    private static final ExecutorService WRITER_POOL = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "FileTransfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates every dest as a reflink of the source at the same index,
+     * replacing dests that exist. There is no Java API for reflinks, so this
+     * runs cp, which uses FICLONE on Linux and clonefile on macOS, once for
+     * the whole batch rather than once per file. The clones are made in
+     * stagingDir, which must be on the file system of the dests, and renamed
+     * into place. The staging directory is removed afterwards.
+     *
+     * @return the dests that were cloned, the others need a copy
+     * @throws InterruptedIOException if the thread was interrupted, with the
+     * interrupt status still set
+     */
+    public static CloneResult clone(List<File> sources, List<File> dests, File stagingDir) throws IOException {
+        var cloned = new BitSet(sources.size());
+        if (CLONE_COMMAND == null) {
+            return new CloneResult(cloned, true);
+        }
+
+        // cp names the clones after their sources, a round holds unique names
+        var rounds = new ArrayList<LinkedHashMap<String, Integer>>();
+        for (int i = 0; i < sources.size(); i++) {
+            var name = sources.get(i).getName();
+            int round = 0;
+            while (round < rounds.size() && rounds.get(round).containsKey(name)) {
+                round++;
+            }
+            if (round == rounds.size()) {
+                rounds.add(new LinkedHashMap<>());
+            }
+            rounds.get(round).put(name, i);
+        }
+
+        boolean unsupported = false;
+        try {
+            var log = new File(stagingDir, "cp.log");
+            for (int round = 0; round < rounds.size(); round++) {
+                var roundDir = new File(stagingDir, Integer.toString(round));
+                Files.createDirectories(roundDir.toPath());
+                var indexes = rounds.get(round).values();
+                var command = new ArrayList<>(List.of(CLONE_COMMAND));
+                command.add("--");
+                for (int i : indexes) {
+                    command.add(sources.get(i).getPath());
+                }
+                command.add(roundDir.getPath() + File.separator);
+
+                var processBuilder = new ProcessBuilder(command)
+                        .redirectErrorStream(true)
+                        .redirectOutput(log);
+                processBuilder.environment().put("LC_ALL", "C");
+                var process = processBuilder.start();
+                try {
+                    process.waitFor();
+                } catch (InterruptedException ex) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(stagingDir.getPath());
+                }
+
+                // a failure for any other reason, a vanished source for instance, only fails its file
+                unsupported |= CLONE_UNSUPPORTED.matcher(Files.readString(log.toPath())).find();
+                for (int i : indexes) {
+                    var source = sources.get(i);
+                    var staged = new File(roundDir, source.getName());
+                    if (staged.isFile() && staged.length() == source.length()) {
+                        staged.setLastModified(source.lastModified());
+                        try {
+                            Files.move(staged.toPath(), dests.get(i).toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                            cloned.set(i);
+                        } catch (AtomicMoveNotSupportedException ex) {
+                            //nvm - the staging directory is elsewhere, copy it
+                        }
+                    }
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(stagingDir);
+        }
+
+        return new CloneResult(cloned, unsupported);
+    }
+
+    /**
+     * Copies source to dest, replacing dest if it exists. The listener is
+     * called before every chunk and may block, to pause or throttle the copy.
+     *
+     * @throws InterruptedIOException if the thread was interrupted, with the
+     * interrupt status still set
+     */
+    public static void copy(File source, File dest, ChunkListener chunkListener) throws IOException {
+        copy(source, dest, chunkListener, false, false);
+    }
+
+    /**
+     * Copies like {@link #copy(File, File, ChunkListener)}, but hashes the
+     * data on its way through, so the source is read only once. The temporary
+     * file is read back and compared before it is renamed into place, a copy
+     * that differs never replaces dest.
+     *
+     * @param bypassCache read the copy back with O_DIRECT where the file
+     * system supports it, so the device rather than the page cache is checked
+     * @return the SHA-256 of the file and the time spent verifying
+     */
+    public static Checksum copyVerified(File source, File dest, ChunkListener chunkListener, boolean bypassCache) throws IOException {
+        return copy(source, dest, chunkListener, true, bypassCache);
+    }
+
+    public static File getTempFile(File dest) {
+        return new File(dest.getParentFile(), "." + dest.getName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Creates dest as a hard link to source, replacing dest if it exists.
+     *
+     * @return false if the file system can't link, and a copy is required
+     */
+    public static boolean link(File source, File dest) throws IOException {
+        var tempFile = getTempFile(dest);
+
+        try {
+            Files.deleteIfExists(tempFile.toPath());
+            Files.createLink(tempFile.toPath(), source.toPath());
+        } catch (FileSystemException | UnsupportedOperationException ex) {
+            return false;
+        }
+
+        Files.move(tempFile.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // a rename onto another link to the same file does nothing
+        Files.deleteIfExists(tempFile.toPath());
+
+        return true;
+    }
+
+    /**
+     * Renames source to dest if both are on the same file system.
+     *
+     * @return false if a copy is required
+     */
+    public static boolean rename(File source, File dest) throws IOException {
+        try {
+            Files.move(source.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (AtomicMoveNotSupportedException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies source to every dest, reading it once. Each chunk is written to
+     * all destinations in parallel while the next one is read. A destination
+     * that fails is dropped and reported in its outcome, the others are
+     * completed. With verify, the source is hashed on the way and every copy
+     * is read back, in parallel, before it is renamed into place.
+     *
+     * @param chunkListener called before every chunk is read, and may block
+     * @param teeListener told the bytes written to each destination, and the
+     * outcome of each as soon as it is known, a failure as it happens
+     * @return the outcome per destination, in the order of dests
+     * @throws InterruptedIOException if the thread was interrupted, with the
+     * interrupt status still set
+     * @throws IOException if the source can't be read, no destination is
+     * written then
+     */
+    public static List<Outcome> tee(File source, List<File> dests, ChunkListener chunkListener, TeeListener teeListener, boolean verify, boolean bypassCache) throws IOException {
+        var targets = new ArrayList<TeeTarget>();
+        for (var dest : dests) {
+            targets.add(new TeeTarget(dest));
+        }
+
+        var digest = verify ? ContentComparator.newDigest() : null;
+        String hash = null;
+        long verifyNanos = 0;
+
+        try (var in = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            targets.forEach(TeeTarget::open);
+            long size = in.size();
+            var buffers = new ByteBuffer[]{ByteBuffer.allocate((int) CHUNK_SIZE), ByteBuffer.allocate((int) CHUNK_SIZE)};
+            int current = 0;
+            for (long position = 0; position < size && targets.stream().anyMatch(TeeTarget::isLive);) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new ClosedByInterruptException();
+                }
+
+                chunkListener.beforeChunk(Math.min(CHUNK_SIZE, size - position));
+                var buffer = buffers[current].clear();
+                int count = in.read(buffer, position);
+                if (count <= 0) {
+                    if (in.size() <= position) {
+                        throw new IOException("File truncated while copying: " + source);
+                    }
+                    continue;
+                }
+
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer.array(), 0, count);
+                }
+
+                // the other buffer is free once the previous chunk is written
+                awaitWrites(targets, teeListener);
+                for (var target : targets) {
+                    target.write(buffer.duplicate(), position);
+                }
+
+                position += count;
+                current ^= 1;
+            }
+            awaitWrites(targets, teeListener);
+
+            if (verify) {
+                long verifyStart = System.nanoTime();
+                var expected = digest.digest();
+                hash = HexFormat.of().formatHex(expected);
+                for (var target : targets) {
+                    target.verify(bypassCache);
+                }
+                for (var target : targets) {
+                    target.awaitVerify(expected, source);
+                    target.report(teeListener, null);
+                }
+                verifyNanos = System.nanoTime() - verifyStart;
+            }
+        } catch (ClosedByInterruptException | InterruptedException ex) {
+            targets.forEach(TeeTarget::discard);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(source.getPath());
+        } catch (IOException ex) {
+            targets.forEach(TeeTarget::discard);
+            throw ex;
+        }
+
+        var checksum = verify ? new Checksum(hash, verifyNanos) : null;
+        var outcomes = new ArrayList<Outcome>();
+        for (var target : targets) {
+            target.commit(source.lastModified());
+            var outcome = target.getOutcome(checksum);
+            target.report(teeListener, outcome);
+            outcomes.add(outcome);
+        }
+
+        return outcomes;
+    }
+
+    private FileTransfer() {
+    }
+
+    private static void awaitWrites(List<TeeTarget> targets, TeeListener teeListener) throws IOException, InterruptedException {
+        for (var target : targets) {
+            target.awaitWrite();
+        }
+        for (var target : targets) {
+            target.report(teeListener, null);
+        }
+    }
+
+    /**
+     * @return the checksum if verified, otherwise null
+     */
+    private static Checksum copy(File source, File dest, ChunkListener chunkListener, boolean verify, boolean bypassCache) throws IOException {
+        var tempFile = getTempFile(dest);
+        var digest = verify ? ContentComparator.newDigest() : null;
+        Checksum checksum = null;
+
+        try (var in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                var out = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            var buffer = digest == null ? null : ByteBuffer.allocate((int) CHUNK_SIZE);
+            for (long position = 0; position < size;) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new ClosedByInterruptException();
+                }
+
+                long chunkSize = Math.min(CHUNK_SIZE, size - position);
+                chunkListener.beforeChunk(chunkSize);
+                long count = buffer == null ? in.transferTo(position, chunkSize, out) : copyChunk(in, out, buffer, position, digest);
+                if (count <= 0 && in.size() <= position) {
+                    throw new IOException("File truncated while copying: " + source);
+                }
+                position += Math.max(count, 0);
+            }
+
+            if (verify) {
+                long verifyStart = System.nanoTime();
+                var expected = digest.digest();
+                if (!MessageDigest.isEqual(expected, hashCopy(out, tempFile, bypassCache))) {
+                    throw new IOException("Checksum mismatch after copying: " + source);
+                }
+                checksum = new Checksum(HexFormat.of().formatHex(expected), System.nanoTime() - verifyStart);
+            }
+        } catch (ClosedByInterruptException | InterruptedException ex) {
+            Files.deleteIfExists(tempFile.toPath());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(source.getPath());
+        } catch (IOException ex) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw ex;
+        }
+
+        tempFile.setLastModified(source.lastModified());
+        Files.move(tempFile.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        return checksum;
+    }
+
+    /**
+     * Reads a chunk into the buffer, hashes it and writes it.
+     *
+     * @return the number of bytes copied, or -1 at the end of the source
+     */
+    private static long copyChunk(FileChannel in, FileChannel out, ByteBuffer buffer, long position, MessageDigest digest) throws IOException {
+        buffer.clear();
+        int count = in.read(buffer, position);
+        if (count <= 0) {
+            return count;
+        }
+
+        buffer.flip();
+        digest.update(buffer.array(), 0, count);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+
+        return count;
+    }
+
+    private static String[] getCloneCommand() {
+        var osName = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (osName.startsWith("linux")) {
+            return new String[]{"cp", "--reflink=always"};
+        } else if (osName.startsWith("mac")) {
+            return new String[]{"cp", "-c"};
+        }
+
+        return null;
+    }
+
+    private static byte[] hash(FileChannel channel, ByteBuffer buffer) throws IOException {
+        var digest = ContentComparator.newDigest();
+        for (long position = 0;;) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new ClosedByInterruptException();
+            }
+
+            buffer.clear().limit((int) CHUNK_SIZE);
+            int count = channel.read(buffer, position);
+            if (count <= 0) {
+                break;
+            }
+            digest.update(buffer.flip());
+            position += count;
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Hashes the copy. Bypassing the cache reads it through a second channel
+     * opened with O_DIRECT, which file systems without support, tmpfs for
+     * instance, refuse. Those fall back to a normal read.
+     */
+    private static byte[] hashCopy(FileChannel out, File tempFile, boolean bypassCache) throws IOException {
+        if (bypassCache) {
+            out.force(false);
+            try (var channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.READ, ExtendedOpenOption.DIRECT)) {
+                int blockSize = (int) Files.getFileStore(tempFile.toPath()).getBlockSize();
+                return hash(channel, ByteBuffer.allocateDirect((int) CHUNK_SIZE + blockSize).alignedSlice(blockSize));
+            } catch (ClosedByInterruptException ex) {
+                throw ex;
+            } catch (IOException | UnsupportedOperationException ex) {
+                //nvm - read through the cache
+            }
+        }
+
+        return hash(out, ByteBuffer.allocate((int) CHUNK_SIZE));
+    }
+
+    public record Checksum(String hash, long verifyNanos) {
+
+    }
+
+    /**
+     * The result of a batch clone, unsupported is set if cp reported that the
+     * file system can't clone at all.
+     */
+    public record CloneResult(BitSet cloned, boolean unsupported) {
+
+    }
+
+    /**
+     * The result of a tee for one destination, the exception is null on
+     * success and the checksum null unless verified.
+     */
+    public record Outcome(File dest, Checksum checksum, IOException exception) {
+
+    }
+
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        void beforeChunk(long bytes) throws InterruptedException;
+    }
+
+    /**
+     * Follows the destinations of a tee, called on the thread running it.
+     */
+    public interface TeeListener {
+
+        /**
+         * Called once per destination, when it is renamed into place or has
+         * failed.
+         */
+        void completed(Outcome outcome) throws IOException;
+
+        /**
+         * Called as a chunk has been written to the destination.
+         */
+        void written(File dest, long bytes);
+    }
+
+    /**
+     * One destination of a tee, written through its own temporary file.
+     */
+    private static class TeeTarget {
+
+        private FileChannel mChannel;
+        private final File mDest;
+        private IOException mException;
+        private Future<?> mFuture;
+        private long mPendingBytes;
+        private boolean mReported;
+        private final File mTempFile;
+        private long mWrittenBytes;
+
+        TeeTarget(File dest) {
+            mDest = dest;
+            mTempFile = getTempFile(dest);
+        }
+
+        void awaitVerify(byte[] expected, File source) throws InterruptedException {
+            if (mFuture != null) {
+                try {
+                    if (!MessageDigest.isEqual(expected, (byte[]) mFuture.get())) {
+                        fail(new IOException("Checksum mismatch after copying: " + source));
+                    }
+                } catch (ExecutionException ex) {
+                    fail(ex.getCause());
+                } finally {
+                    mFuture = null;
+                }
+            }
+        }
+
+        void awaitWrite() throws InterruptedException {
+            if (mFuture != null) {
+                try {
+                    mFuture.get();
+                    mWrittenBytes += mPendingBytes;
+                } catch (ExecutionException ex) {
+                    fail(ex.getCause());
+                } finally {
+                    mFuture = null;
+                }
+            }
+        }
+
+        /**
+         * Closes the copy and renames it into place, unless it failed.
+         */
+        void commit(long lastModified) {
+            if (!isLive()) {
+                return;
+            }
+
+            try {
+                mChannel.close();
+                mTempFile.setLastModified(lastModified);
+                Files.move(mTempFile.toPath(), mDest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        void discard() {
+            if (mFuture != null) {
+                mFuture.cancel(true);
+                mFuture = null;
+            }
+
+            try {
+                if (mChannel != null) {
+                    mChannel.close();
+                }
+                Files.deleteIfExists(mTempFile.toPath());
+            } catch (IOException ex) {
+                //nvm - nothing more to do
+            }
+        }
+
+        Outcome getOutcome(Checksum checksum) {
+            return new Outcome(mDest, isLive() ? checksum : null, mException);
+        }
+
+        boolean isLive() {
+            return mException == null;
+        }
+
+        void open() {
+            try {
+                mChannel = FileChannel.open(mTempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        /**
+         * Reports the bytes written since the last report, and the outcome
+         * once failed or given.
+         */
+        void report(TeeListener teeListener, Outcome outcome) throws IOException {
+            if (mWrittenBytes > 0) {
+                teeListener.written(mDest, mWrittenBytes);
+                mWrittenBytes = 0;
+            }
+
+            if (!mReported && (!isLive() || outcome != null)) {
+                mReported = true;
+                teeListener.completed(outcome != null ? outcome : getOutcome(null));
+            }
+        }
+
+        void verify(boolean bypassCache) {
+            if (isLive()) {
+                mFuture = WRITER_POOL.submit(() -> hashCopy(mChannel, mTempFile, bypassCache));
+            }
+        }
+
+        void write(ByteBuffer buffer, long position) {
+            if (isLive()) {
+                mPendingBytes = buffer.remaining();
+                mFuture = WRITER_POOL.submit(() -> {
+                    for (long offset = position; buffer.hasRemaining();) {
+                        offset += mChannel.write(buffer, offset);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            if (mException == null) {
+                mException = throwable instanceof IOException ioException ? ioException : new IOException(throwable);
+            }
+            discard();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reads the date from a file name, without touching the file.
+ * <p>
+ * Patterns are regular expressions with the named groups {@code year},
+ * {@code month} and {@code day}, and optionally {@code hour},
+ * {@code minute} and {@code second}. The patterns of the task are tried
+ * first, then a built-in set of common phone and camera names. The date is
+ * taken as local time.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class FilenameDateParser {
+
+    private static final List<Pattern> BUILT_IN_PATTERNS = Stream.of(
+            // IMG_20240315_142233, PXL_20240315_142233123, VID_20240315_142233, Screenshot_20240315-142233, DJI_20240315142233
+            "(?<!\\d)(?<year>(?:19|20)\\d{2})(?<month>\\d{2})(?<day>\\d{2})[_-]?(?<hour>\\d{2})(?<minute>\\d{2})(?<second>\\d{2})",
+            // 2024-03-15 14.22.33, Screenshot 2024-03-15 at 14.22.33, signal-2024-03-15-142233
+            "(?<!\\d)(?<year>(?:19|20)\\d{2})-(?<month>\\d{2})-(?<day>\\d{2})[ _T-](?:at )?(?<hour>\\d{2})[.:-]?(?<minute>\\d{2})[.:-]?(?<second>\\d{2})",
+            // IMG-20240315-WA0001, VID-20240315-WA0001
+            "(?<!\\d)(?<year>(?:19|20)\\d{2})(?<month>\\d{2})(?<day>\\d{2})-WA\\d",
+            // 2024-03-15
+            "(?<!\\d)(?<year>(?:19|20)\\d{2})-(?<month>\\d{2})-(?<day>\\d{2})(?!\\d)"
+    ).map(Pattern::compile).toList();
+    private static final int MIN_DIGITS = 8;
+    private final List<Pattern> mPatterns;
+
+    /**
+     * Compiles the patterns.
+     *
+     * @throws IllegalArgumentException if a pattern isn't a valid regular
+     * expression or lacks a year, month or day group
+     */
+    public FilenameDateParser(List<String> patterns) {
+        mPatterns = new ArrayList<>();
+        for (var pattern : patterns) {
+            if (!pattern.contains("(?<year>") || !pattern.contains("(?<month>") || !pattern.contains("(?<day>")) {
+                throw new IllegalArgumentException("Missing year, month or day group: " + pattern);
+            }
+            mPatterns.add(Pattern.compile(pattern));
+        }
+    }
+
+    /**
+     * Returns the date in the file name, or null if there is none.
+     */
+    public Date parse(String name) {
+        for (var pattern : mPatterns) {
+            var date = parse(pattern, name);
+            if (date != null) {
+                return date;
+            }
+        }
+
+        if (countDigits(name) < MIN_DIGITS) {
+            return null;
+        }
+
+        for (var pattern : BUILT_IN_PATTERNS) {
+            var date = parse(pattern, name);
+            if (date != null) {
+                return date;
+            }
+        }
+
+        return null;
+    }
+
+    private int countDigits(String name) {
+        int count = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isDigit(name.charAt(i))) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private int getGroup(Matcher matcher, String group) {
+        try {
+            var value = matcher.group(group);
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (IllegalArgumentException ex) {
+            return 0;
+        }
+    }
+
+    private Date parse(Pattern pattern, String name) {
+        var matcher = pattern.matcher(name);
+        while (matcher.find()) {
+            try {
+                var dateTime = LocalDateTime.of(
+                        Integer.parseInt(matcher.group("year")),
+                        Integer.parseInt(matcher.group("month")),
+                        Integer.parseInt(matcher.group("day")),
+                        getGroup(matcher, "hour"),
+                        getGroup(matcher, "minute"),
+                        getGroup(matcher, "second")
+                );
+
+                return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+            } catch (DateTimeException | NumberFormatException ex) {
+                //nvm - not a date, try the next match
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.openide.util.Exceptions;
+
+/**
+ * SHA-256 hashes of files, valid as long as size and modification time are
+ * unchanged. Kept across runs in a tab separated file in the user directory.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class HashCache {
+
+    private static final int MAX_ENTRIES = 1_000_000;
+    private boolean mDirty;
+    private final LinkedHashMap<String, CacheEntry> mEntries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final File mFile;
+    private boolean mLoaded;
+
+    public static HashCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private HashCache() {
+        mFile = StorageManager.getInstance().getHashCacheFile();
+    }
+
+    /**
+     * Returns the cached hash, or null if missing or outdated.
+     */
+    public synchronized String get(File file) {
+        load();
+        var entry = mEntries.get(file.getAbsolutePath());
+        if (entry != null && entry.size() == file.length() && entry.modified() == file.lastModified()) {
+            return entry.hash();
+        }
+
+        return null;
+    }
+
+    public synchronized void put(File file, String hash) {
+        load();
+        mEntries.put(file.getAbsolutePath(), new CacheEntry(file.length(), file.lastModified(), hash));
+        mDirty = true;
+    }
+
+    public synchronized void save() {
+        if (!mDirty) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(mFile.getParentFile().toPath());
+            var tempFile = new File(mFile.getPath() + ".tmp");
+            try (var writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                for (var item : mEntries.entrySet()) {
+                    var entry = item.getValue();
+                    writer.append(entry.hash()).append('\t')
+                            .append(Long.toString(entry.size())).append('\t')
+                            .append(Long.toString(entry.modified())).append('\t')
+                            .append(item.getKey()).append('\n');
+                }
+            }
+            Files.move(tempFile.toPath(), mFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            mDirty = false;
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+
+        mLoaded = true;
+        if (!mFile.isFile()) {
+            return;
+        }
+
+        try (var lines = Files.lines(mFile.toPath(), StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                var items = line.split("\t", 4);
+                if (items.length == 4) {
+                    try {
+                        mEntries.put(items[3], new CacheEntry(Long.parseLong(items[1]), Long.parseLong(items[2]), items[0]));
+                    } catch (NumberFormatException ex) {
+                        //nvm - skip damaged line
+                    }
+                }
+            });
+        } catch (IOException | RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private record CacheEntry(long size, long modified, String hash) {
+
+    }
+
+    private static class Holder {
+
+        private static final HashCache INSTANCE = new HashCache();
+    }
+}
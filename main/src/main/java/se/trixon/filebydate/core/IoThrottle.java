@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import se.trixon.filebydate.Options;
+
+/**
+ * Per device bandwidth and file rate limits, shared by all running tasks.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class IoThrottle {
+
+    private static final Object UNKNOWN_DEVICE = new Object();
+    private final ConcurrentHashMap<Object, RateLimiter> mBytesLimiters = new ConcurrentHashMap<>();
+    private volatile double mBytesPerSecond;
+    private final ConcurrentHashMap<Object, RateLimiter> mFilesLimiters = new ConcurrentHashMap<>();
+    private volatile double mFilesPerSecond;
+
+    public static IoThrottle getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private IoThrottle() {
+        loadRates();
+    }
+
+    public void acquireBytes(Object device, long bytes) throws InterruptedException {
+        mBytesLimiters.computeIfAbsent(device, k -> new RateLimiter(mBytesPerSecond)).acquire(bytes);
+    }
+
+    public void acquireFile(Object device) throws InterruptedException {
+        mFilesLimiters.computeIfAbsent(device, k -> new RateLimiter(mFilesPerSecond)).acquire(1);
+    }
+
+    /**
+     * Returns a key identifying the device holding the file.
+     */
+    public Object getDevice(File file) {
+        try {
+            return Files.getFileStore(file.toPath());
+        } catch (IOException ex) {
+            return UNKNOWN_DEVICE;
+        }
+    }
+
+    /**
+     * Applies the limits from the options, also to running transfers.
+     */
+    public synchronized void loadRates() {
+        var options = Options.getInstance();
+        mBytesPerSecond = options.getMaxMegabytesPerSecond() * 1E6;
+        mFilesPerSecond = options.getMaxFilesPerSecond();
+        mBytesLimiters.values().forEach(rateLimiter -> rateLimiter.setRate(mBytesPerSecond));
+        mFilesLimiters.values().forEach(rateLimiter -> rateLimiter.setRate(mFilesPerSecond));
+    }
+
+    private static class Holder {
+
+        private static final IoThrottle INSTANCE = new IoThrottle();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import com.drew.imaging.ImageProcessingException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Runs metadata reads with a time limit and a cap on the bytes they take
+ * from the file, so a corrupt file can't hold up a run.
+ * <p>
+ * Reads run on the calling thread, so the date read-ahead workers are the
+ * only threads reading. A watchdog shared by all guards enforces the time
+ * limit from outside: a read that runs out of time has its stream closed and
+ * its thread interrupted, and the caller gets a
+ * {@link LimitExceededException}. A read stuck where neither reaches it holds
+ * its thread until it returns.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class MetadataGuard {
+
+    private static final ScheduledThreadPoolExecutor WATCHDOG = createWatchdog();
+    private final ThreadLocal<Read> mCurrentRead = new ThreadLocal<>();
+    private final long mMaxBytes;
+    private final long mTimeoutMillis;
+
+    /**
+     * @param timeoutMillis 0 for no time limit
+     * @param maxBytes 0 for no byte limit
+     */
+    public MetadataGuard(long timeoutMillis, long maxBytes) {
+        mTimeoutMillis = timeoutMillis;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Runs the read within the limits.
+     *
+     * @throws LimitExceededException if the read ran out of time or bytes
+     */
+    public <T> T call(File file, Callable<T> reader) throws IOException, ImageProcessingException {
+        var read = new Read(Thread.currentThread());
+        var watch = mTimeoutMillis <= 0 ? null : WATCHDOG.schedule(read::abandon, mTimeoutMillis, TimeUnit.MILLISECONDS);
+        mCurrentRead.set(read);
+
+        T result;
+        try {
+            result = reader.call();
+        } catch (IOException | ImageProcessingException | RuntimeException ex) {
+            checkLimits(file, read, watch);
+            throw ex;
+        } catch (Exception ex) {
+            checkLimits(file, read, watch);
+            throw new IOException(ex);
+        } finally {
+            mCurrentRead.remove();
+        }
+
+        checkLimits(file, read, watch);
+
+        return result;
+    }
+
+    /**
+     * Opens the file for a read run by {@link #call(File, Callable)}. The
+     * stream fails once the byte limit is reached or the read is abandoned.
+     */
+    public InputStream open(File file) throws IOException {
+        var stream = new LimitedInputStream(new FileInputStream(file), mMaxBytes <= 0 ? Long.MAX_VALUE : mMaxBytes);
+        var read = mCurrentRead.get();
+        if (read != null) {
+            read.mStream = stream;
+        }
+
+        return stream;
+    }
+
+    /**
+     * Ends the watch of a finished read and throws if it ran out of time or
+     * bytes.
+     */
+    private void checkLimits(File file, Read read, Future<?> watch) throws LimitExceededException {
+        if (watch != null) {
+            watch.cancel(false);
+        }
+
+        if (read.finish()) {
+            throw new LimitExceededException("Gave up reading metadata after %d s: %s".formatted(TimeUnit.MILLISECONDS.toSeconds(mTimeoutMillis), file.getAbsolutePath()));
+        }
+
+        var stream = read.mStream;
+        if (stream != null && stream.isExceeded()) {
+            throw new LimitExceededException("Gave up reading metadata after %s: %s".formatted(FileUtils.byteCountToDisplaySize(mMaxBytes), file.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * Creates the watchdog, which drops the watch of a finished read rather
+     * than keeping it queued until its time is up.
+     */
+    private static ScheduledThreadPoolExecutor createWatchdog() {
+        var watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "MetadataWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+
+        return watchdog;
+    }
+
+    /**
+     * Thrown when a metadata read ran out of time or bytes.
+     */
+    public static class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long mCount;
+        private boolean mExceeded;
+        private final long mMaxBytes;
+
+        public LimitedInputStream(InputStream inputStream, long maxBytes) {
+            super(inputStream);
+            mMaxBytes = maxBytes;
+        }
+
+        public boolean isExceeded() {
+            return mExceeded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var bytes = new byte[1];
+
+            return read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            } else if (mCount >= mMaxBytes) {
+                mExceeded = true;
+                throw new IOException("Read limit reached");
+            }
+
+            int count = super.read(bytes, offset, (int) Math.min(length, mMaxBytes - mCount));
+            if (count > 0) {
+                mCount += count;
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * The thread and stream of one read, kept so the watchdog can abandon it.
+     */
+    private static class Read {
+
+        private boolean mAbandoned;
+        private boolean mFinished;
+        private boolean mInterrupted;
+        private volatile LimitedInputStream mStream;
+        private final Thread mThread;
+
+        Read(Thread thread) {
+            mThread = thread;
+        }
+
+        /**
+         * Closes the stream and interrupts the thread, unless the read has
+         * finished. A thread already interrupted, by a cancel, is left so.
+         */
+        synchronized void abandon() {
+            if (mFinished) {
+                return;
+            }
+
+            mAbandoned = true;
+            IOUtils.closeQuietly(mStream);
+            if (!mThread.isInterrupted()) {
+                mInterrupted = true;
+                mThread.interrupt();
+            }
+        }
+
+        /**
+         * Marks the read finished, clearing the interrupt of an abandon.
+         *
+         * @return true if the read was abandoned
+         */
+        synchronized boolean finish() {
+            mFinished = true;
+            if (mInterrupted) {
+                Thread.interrupted();
+            }
+
+            return mAbandoned;
+        }
+    }
+}
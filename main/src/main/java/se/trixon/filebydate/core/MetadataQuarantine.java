@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import org.openide.util.Exceptions;
+
+/**
+ * Files whose metadata couldn't be read within the limits, so later runs
+ * don't try again. A file gets a new chance once its modification time
+ * changes. Kept across runs in a tab separated file in the user directory.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class MetadataQuarantine {
+
+    private boolean mDirty;
+    private final LinkedHashMap<String, QuarantineEntry> mEntries = new LinkedHashMap<>();
+    private final File mFile;
+    private boolean mLoaded;
+
+    public static MetadataQuarantine getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private MetadataQuarantine() {
+        mFile = StorageManager.getInstance().getQuarantineFile();
+    }
+
+    public synchronized void add(File file, long modified, String reason) {
+        load();
+        mEntries.put(file.getAbsolutePath(), new QuarantineEntry(modified, reason.replaceAll("[\\t\\n]", " ")));
+        mDirty = true;
+    }
+
+    /**
+     * Checks whether the file, as last modified at the given time, is
+     * quarantined.
+     */
+    public synchronized boolean contains(File file, long modified) {
+        load();
+        var entry = mEntries.get(file.getAbsolutePath());
+
+        return entry != null && entry.modified() == modified;
+    }
+
+    public synchronized void save() {
+        if (!mDirty) {
+            return;
+        }
+
+        var sb = new StringBuilder();
+        mEntries.forEach((path, entry) -> {
+            sb.append(entry.modified()).append('\t')
+                    .append(entry.reason()).append('\t')
+                    .append(path).append('\n');
+        });
+
+        try {
+            Files.createDirectories(mFile.getParentFile().toPath());
+            var tempFile = new File(mFile.getPath() + ".tmp");
+            Files.writeString(tempFile.toPath(), sb, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), mFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            mDirty = false;
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+
+        mLoaded = true;
+        if (!mFile.isFile()) {
+            return;
+        }
+
+        try (var lines = Files.lines(mFile.toPath(), StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                var items = line.split("\t", 3);
+                if (items.length == 3) {
+                    try {
+                        mEntries.put(items[2], new QuarantineEntry(Long.parseLong(items[0]), items[1]));
+                    } catch (NumberFormatException ex) {
+                        //nvm - skip damaged line
+                    }
+                }
+            });
+        } catch (IOException | RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private record QuarantineEntry(long modified, String reason) {
+
+    }
+
+    private static class Holder {
+
+        private static final MetadataQuarantine INSTANCE = new MetadataQuarantine();
+    }
+}
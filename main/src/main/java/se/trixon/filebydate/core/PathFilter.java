@@ -0,0 +1,215 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Include and exclude rules for file and directory names.
+ * <p>
+ * Rules are globs matched against the name. A rule ending with a slash
+ * matches directories, which are then skipped before they are listed. Plain
+ * extension rules like {@code *.jpg}, also inside a top level
+ * {@code {...}} group, are looked up in a hash set instead of being matched
+ * as globs. The lookup ignores case for the include and exclude rules, and
+ * keeps the case of the file pattern like the glob would. A file is accepted
+ * if it matches the file pattern or an include rule, and no exclude rule.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class PathFilter {
+
+    private static final String GLOB_CHARS = "*?[]{}\\";
+    private final Rules mExcludes = new Rules(true);
+    private final Rules mIncludes = new Rules(true);
+    private final Rules mPattern = new Rules(false);
+
+    /**
+     * Compiles the rules.
+     *
+     * @throws IllegalArgumentException if a rule isn't a valid glob
+     */
+    public PathFilter(String pattern, List<String> includes, List<String> excludes) {
+        if (pattern.endsWith("/")) {
+            throw new IllegalArgumentException(pattern);
+        }
+        mPattern.add(pattern);
+
+        for (var include : includes) {
+            if (include.endsWith("/")) {
+                throw new IllegalArgumentException(include);
+            }
+            mIncludes.add(include);
+        }
+
+        for (var exclude : excludes) {
+            mExcludes.add(exclude);
+        }
+    }
+
+    /**
+     * Whether the directory and everything below it should be walked.
+     */
+    public boolean acceptDirectory(String name) {
+        return !mExcludes.matchesDirectory(name);
+    }
+
+    public boolean acceptFile(String name) {
+        return (mPattern.matchesFile(name) || mIncludes.matchesFile(name)) && !mExcludes.matchesFile(name);
+    }
+
+    private static boolean isLiteral(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (GLOB_CHARS.indexOf(string.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Splits a pattern wrapped in a single top level group into its
+     * alternatives, or returns the pattern itself.
+     */
+    private static List<String> split(String pattern) {
+        if (!pattern.startsWith("{") || !pattern.endsWith("}")) {
+            return List.of(pattern);
+        }
+
+        var alternatives = new ArrayList<String>();
+        int depth = 0;
+        int start = 1;
+        for (int i = 1; i < pattern.length() - 1; i++) {
+            switch (pattern.charAt(i)) {
+                case '{', '[' ->
+                    depth++;
+                case '}', ']' -> {
+                    if (--depth < 0) {
+                        return List.of(pattern);
+                    }
+                }
+                case '\\' ->
+                    i++;
+                case ',' -> {
+                    if (depth == 0) {
+                        alternatives.add(pattern.substring(start, i));
+                        start = i + 1;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (depth != 0) {
+            return List.of(pattern);
+        }
+        alternatives.add(pattern.substring(start, pattern.length() - 1));
+
+        return alternatives;
+    }
+
+    private static class Rules {
+
+        private final ArrayList<PathMatcher> mDirMatchers = new ArrayList<>();
+        private final HashSet<String> mDirNames = new HashSet<>();
+        private final HashSet<String> mExtensions = new HashSet<>();
+        private final ArrayList<PathMatcher> mFileMatchers = new ArrayList<>();
+        private final HashSet<String> mFileNames = new HashSet<>();
+        private final boolean mIgnoreCase;
+        private boolean mMatchAll;
+
+        Rules(boolean ignoreCase) {
+            mIgnoreCase = ignoreCase;
+        }
+
+        void add(String pattern) {
+            boolean directory = pattern.endsWith("/");
+            if (directory) {
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+
+            for (var alternative : split(pattern)) {
+                if (alternative.isEmpty()) {
+                    continue;
+                } else if (directory) {
+                    addName(alternative, mDirNames, mDirMatchers);
+                } else if (alternative.equals("*")) {
+                    mMatchAll = true;
+                } else if (alternative.startsWith("*.") && alternative.indexOf('.', 2) < 0 && isLiteral(alternative.substring(2))) {
+                    mExtensions.add(toKey(alternative.substring(2)));
+                } else {
+                    addName(alternative, mFileNames, mFileMatchers);
+                }
+            }
+        }
+
+        boolean matchesDirectory(String name) {
+            return matches(name, mDirNames, mDirMatchers);
+        }
+
+        boolean matchesFile(String name) {
+            if (mMatchAll) {
+                return true;
+            }
+
+            if (!mExtensions.isEmpty()) {
+                int dot = name.lastIndexOf('.');
+                if (dot >= 0 && mExtensions.contains(toKey(name.substring(dot + 1)))) {
+                    return true;
+                }
+            }
+
+            return matches(name, mFileNames, mFileMatchers);
+        }
+
+        private void addName(String pattern, HashSet<String> names, ArrayList<PathMatcher> matchers) {
+            if (isLiteral(pattern)) {
+                names.add(pattern);
+            } else {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            }
+        }
+
+        private boolean matches(String name, HashSet<String> names, ArrayList<PathMatcher> matchers) {
+            if (names.contains(name)) {
+                return true;
+            } else if (matchers.isEmpty()) {
+                return false;
+            }
+
+            var path = Path.of(name);
+            for (var matcher : matchers) {
+                if (matcher.matches(path)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private String toKey(String extension) {
+            return mIgnoreCase ? extension.toLowerCase(Locale.ROOT) : extension;
+        }
+    }
+}
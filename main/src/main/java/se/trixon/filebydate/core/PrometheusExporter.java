@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openide.util.NbBundle;
+
+/**
+ * Writes run metrics in the node_exporter textfile collector format. The file
+ * is replaced atomically on every write so a scrape never sees a partial file.
+ * Each task has its own file, named by task id, and dry runs write to a file
+ * of their own so they never overwrite the metrics of real runs. A failed
+ * write is reported once and ends the export for the run.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class PrometheusExporter {
+
+    private static final long INTERVAL_SECONDS = 15;
+    private boolean mActive;
+    private final File mDirectory;
+    private final boolean mDryRun;
+    private final PrintWriter mErr;
+    private boolean mFailed;
+    private final File mFile;
+    private ScheduledExecutorService mScheduler;
+    private final Statistics mStatistics;
+    private final Task mTask;
+
+    public PrometheusExporter(File directory, Task task, Statistics statistics, boolean dryRun, PrintWriter err) {
+        mDirectory = directory;
+        mErr = err;
+        mTask = task;
+        mStatistics = statistics;
+        mDryRun = dryRun;
+        mFile = new File(directory, "filebydate_%s_%s%s.prom".formatted(
+                task.getName().replaceAll("[^A-Za-z0-9_-]", "_"),
+                task.getId().replaceAll("[^A-Za-z0-9_-]", "_"),
+                dryRun ? "_dry_run" : ""
+        ));
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    public synchronized void start() {
+        mActive = true;
+        mScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "PrometheusExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mScheduler.scheduleAtFixedRate(this::write, 0, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (mScheduler != null) {
+            mScheduler.shutdownNow();
+            mScheduler = null;
+        }
+
+        mActive = false;
+        if (!mFailed) {
+            write();
+        }
+    }
+
+    private void appendMetric(StringBuilder sb, String name, String type, String help, String labels, Object value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        appendSample(sb, name, labels, value);
+    }
+
+    private void appendSample(StringBuilder sb, String name, String labels, Object value) {
+        sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1E9);
+    }
+
+    private synchronized void write() {
+        var labels = "task=\"%s\",task_id=\"%s\",dry_run=\"%b\"".formatted(escape(mTask.getName()), escape(mTask.getId()), mDryRun);
+        var sb = new StringBuilder();
+
+        appendMetric(sb, "filebydate_run_active", "gauge", "Whether the task is running.", labels, mActive ? 1 : 0);
+        appendMetric(sb, "filebydate_run_start_timestamp_seconds", "gauge", "Start time of the latest run.", labels, mStatistics.getStarted() / 1000);
+        appendMetric(sb, "filebydate_run_duration_seconds", "gauge", "Duration of the latest run.", labels, String.format(Locale.ROOT, "%.3f", (System.currentTimeMillis() - mStatistics.getStarted()) / 1E3));
+        appendMetric(sb, "filebydate_run_files", "gauge", "Files transferred by the latest run.", labels, mStatistics.getFiles());
+        appendMetric(sb, "filebydate_run_bytes", "gauge", "Bytes transferred by the latest run.", labels, mStatistics.getBytes());
+        appendMetric(sb, "filebydate_run_errors", "gauge", "Errors in the latest run.", labels, mStatistics.getErrors());
+
+        var stageMetric = "filebydate_run_stage_seconds";
+        appendMetric(sb, stageMetric, "gauge", "Time spent per stage in the latest run.", labels + ",stage=\"scan\"", seconds(mStatistics.getScanNanos()));
+        appendSample(sb, stageMetric, labels + ",stage=\"date\"", seconds(mStatistics.getDateNanos()));
+        appendSample(sb, stageMetric, labels + ",stage=\"transfer\"", seconds(mStatistics.getTransferNanos()));
+        appendSample(sb, stageMetric, labels + ",stage=\"verify\"", seconds(mStatistics.getVerifyNanos()));
+
+        var dateSourceMetric = "filebydate_run_date_source_files";
+        var dateSources = mTask.getDateSources();
+        for (int i = 0; i < dateSources.size(); i++) {
+            var dateSource = dateSources.get(i);
+            var sourceLabels = labels + ",source=\"%s\"".formatted(dateSource.name().toLowerCase(Locale.ROOT));
+            if (i == 0) {
+                appendMetric(sb, dateSourceMetric, "gauge", "Files dated per date source in the latest run.", sourceLabels, mStatistics.getDateSourceHits(dateSource));
+            } else {
+                appendSample(sb, dateSourceMetric, sourceLabels, mStatistics.getDateSourceHits(dateSource));
+            }
+        }
+
+        appendMetric(sb, "filebydate_last_success_timestamp_seconds", "gauge", "End time of the last real run that finished without errors.", labels, mTask.getLastSuccess() / 1000);
+
+        Path tempFile = null;
+        try {
+            Files.createDirectories(mDirectory.toPath());
+            tempFile = Files.createTempFile(mDirectory.toPath(), ".filebydate", ".tmp");
+            Files.writeString(tempFile, sb.toString(), StandardCharsets.UTF_8);
+            Files.move(tempFile, mFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            if (tempFile != null) {
+                tempFile.toFile().delete();
+            }
+            mFailed = true;
+            if (mScheduler != null) {
+                mScheduler.shutdown();
+            }
+            mErr.println(NbBundle.getBundle(Task.class).getString("prometheus_failed").formatted(mFile.getAbsolutePath(), ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+/**
+ * Reads the creation time from the movie header of QuickTime and MP4 files.
+ * <p>
+ * Only atom headers are read while looking for {@code moov/mvhd}, so the
+ * cost is a few small reads no matter how large the file is or whether the
+ * movie atom comes before or after the media data.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public final class QuickTimeDateReader {
+
+    /**
+     * Seconds from 1904-01-01, the QuickTime epoch, to 1970-01-01.
+     */
+    private static final long EPOCH_OFFSET = 2_082_844_800L;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_ATOMS = 1024;
+
+    /**
+     * Returns the creation time of the movie, or null if the file isn't a
+     * QuickTime file or has no creation time.
+     */
+    public static Date read(File file) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var moov = find(channel, 0, channel.size(), "moov");
+            var mvhd = moov == null ? null : find(channel, moov.payload(), moov.end(), "mvhd");
+            if (mvhd == null || mvhd.end() - mvhd.payload() < Integer.BYTES + Long.BYTES) {
+                return null;
+            }
+
+            var buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+            readFully(channel, buffer, mvhd.payload());
+            int version = buffer.get(0);
+            long seconds = version == 1 ? buffer.getLong(Integer.BYTES) : Integer.toUnsignedLong(buffer.getInt(Integer.BYTES));
+
+            return seconds == 0 ? null : new Date((seconds - EPOCH_OFFSET) * 1000);
+        }
+    }
+
+    /**
+     * Walks the atoms between start and end and returns the first one of the
+     * given type, or null if there is none or the atoms don't look like
+     * QuickTime.
+     */
+    private static Atom find(FileChannel channel, long start, long end, String type) throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = start;
+
+        for (int i = 0; i < MAX_ATOMS && position + HEADER_SIZE <= end; i++) {
+            readFully(channel, header, position);
+            long size = Integer.toUnsignedLong(header.getInt(0));
+            var atomType = getType(header);
+            if (atomType == null) {
+                return null;
+            }
+
+            int headerSize = HEADER_SIZE;
+            if (size == 1 && position + HEADER_SIZE + Long.BYTES <= end) {
+                var largeSize = ByteBuffer.allocate(Long.BYTES);
+                readFully(channel, largeSize, position + HEADER_SIZE);
+                size = largeSize.getLong(0);
+                headerSize += Long.BYTES;
+            } else if (size == 0) {
+                size = end - position;
+            }
+
+            if (size < headerSize || size > end - position) {
+                return null;
+            }
+
+            if (atomType.equals(type)) {
+                return new Atom(position + headerSize, position + size);
+            }
+
+            position += size;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the atom type of the header, or null if it isn't four printable
+     * characters.
+     */
+    private static String getType(ByteBuffer header) {
+        var chars = new char[4];
+        for (int i = 0; i < chars.length; i++) {
+            int c = header.get(Integer.BYTES + i) & 0xff;
+            if (c < 0x20 || c > 0x7e) {
+                return null;
+            }
+            chars[i] = (char) c;
+        }
+
+        return new String(chars);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private QuickTimeDateReader() {
+    }
+
+    private record Atom(long payload, long end) {
+
+    }
+}
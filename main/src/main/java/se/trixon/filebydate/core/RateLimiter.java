@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket holding up to one second of permits. Callers reserve their
+ * permits in arrival order and sleep outside the lock until the reservation
+ * is due, so concurrent workers share the rate fairly.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class RateLimiter {
+
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private double mRate;
+    private long mTheoreticalArrival = System.nanoTime();
+
+    /**
+     * @param rate permits per second, 0 for unlimited
+     */
+    public RateLimiter(double rate) {
+        mRate = rate;
+    }
+
+    public void acquire(long permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public synchronized double getRate() {
+        return mRate;
+    }
+
+    /**
+     * Changes the rate, taking effect for the next reservation.
+     *
+     * @param rate permits per second, 0 for unlimited
+     */
+    public synchronized void setRate(double rate) {
+        mRate = rate;
+    }
+
+    private synchronized long reserve(long permits) {
+        if (mRate <= 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        if (now - mTheoreticalArrival > 0) {
+            mTheoreticalArrival = now;
+        }
+        mTheoreticalArrival += (long) (permits * 1E9 / mRate);
+
+        return mTheoreticalArrival - BURST_NANOS - now;
+    }
+}
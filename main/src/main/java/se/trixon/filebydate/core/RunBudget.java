@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Limits for a single run. When a limit is reached the run stops at the next
+ * file boundary and leaves a checkpoint for the next run.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public record RunBudget(Duration maxDuration, long maxBytes) {
+
+    public static final RunBudget UNLIMITED = new RunBudget(null, 0);
+
+    /**
+     * Parses limits like {@code 3h}, {@code 90m} or {@code PT3H} and
+     * {@code 500G}, {@code 10M} or {@code 1024}. Null or blank means no
+     * limit.
+     *
+     * @throws IllegalArgumentException if a limit can't be parsed
+     */
+    public static RunBudget parse(String maxDuration, String maxBytes) {
+        return new RunBudget(parseDuration(maxDuration), parseBytes(maxBytes));
+    }
+
+    /**
+     * Parses a byte count like {@code 500G}, or returns 0 if it is blank.
+     */
+    static long parseBytes(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+
+        var s = value.strip().toUpperCase(Locale.ROOT);
+        int shift = switch (s.charAt(s.length() - 1)) {
+            case 'K' ->
+                10;
+            case 'M' ->
+                20;
+            case 'G' ->
+                30;
+            case 'T' ->
+                40;
+            default ->
+                0;
+        };
+        if (shift > 0) {
+            s = s.substring(0, s.length() - 1);
+        }
+
+        try {
+            return Long.parseLong(s) << shift;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid byte count: " + value, ex);
+        }
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        var s = value.strip().toUpperCase(Locale.ROOT);
+        try {
+            if (s.startsWith("P")) {
+                return Duration.parse(s);
+            } else if (s.endsWith("D")) {
+                return Duration.parse("P" + s);
+            } else {
+                return Duration.parse("PT" + s);
+            }
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid duration: " + value, ex);
+        }
+    }
+
+    /**
+     * Checks whether the next file fits in what is left. The first file of a
+     * run is always allowed so a small byte budget can't stall the task.
+     */
+    public boolean isExhausted(long elapsedMillis, long bytes, long nextSize) {
+        if (maxDuration != null && elapsedMillis >= maxDuration.toMillis()) {
+            return true;
+        }
+
+        return maxBytes > 0 && bytes > 0 && bytes + nextSize > maxBytes;
+    }
+
+    public boolean isLimited() {
+        return maxDuration != null || maxBytes > 0;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * Pairs sidecar files, like XMP, AAE and THM, with the file they describe in
+ * the same directory, so they can be dated by it and transferred with it.
+ * <p>
+ * A sidecar belongs to the file named like the sidecar without its
+ * extension, as in {@code IMG_1234.JPG.xmp}, or else to the first file in
+ * name order with the same base name, as in {@code IMG_1234.xmp}. Sidecars
+ * without such a file are handled as ordinary files.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class SidecarGrouper {
+
+    public static final List<String> DEFAULT_EXTENSIONS = List.of("aae", "thm", "xmp");
+    private final Set<String> mExtensions;
+
+    public SidecarGrouper(List<String> extensions) {
+        mExtensions = extensions.stream()
+                .map(extension -> extension.replaceFirst("^\\*?\\.", "").toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the indexes of the names in processing order, every file
+     * directly followed by its sidecars.
+     *
+     * @param primaries as returned by {@link #getPrimaries(List)}
+     */
+    public static int[] getOrder(int[] primaries) {
+        int count = primaries.length;
+        var firstSidecars = new int[count];
+        var lastSidecars = new int[count];
+        var nextSidecars = new int[count];
+        Arrays.fill(firstSidecars, -1);
+        Arrays.fill(nextSidecars, -1);
+
+        for (int i = 0; i < count; i++) {
+            int primary = primaries[i];
+            if (primary >= 0) {
+                if (firstSidecars[primary] < 0) {
+                    firstSidecars[primary] = i;
+                } else {
+                    nextSidecars[lastSidecars[primary]] = i;
+                }
+                lastSidecars[primary] = i;
+            }
+        }
+
+        var order = new int[count];
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (primaries[i] < 0) {
+                order[position++] = i;
+                for (int sidecar = firstSidecars[i]; sidecar >= 0; sidecar = nextSidecars[sidecar]) {
+                    order[position++] = sidecar;
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns, for each of the names in one directory sorted by name, the
+     * index of the file it is a sidecar of, or -1.
+     */
+    public int[] getPrimaries(List<String> names) {
+        var primaries = new int[names.size()];
+        Arrays.fill(primaries, -1);
+        if (mExtensions.isEmpty()) {
+            return primaries;
+        }
+
+        var nameToIndex = new HashMap<String, Integer>();
+        var baseNameToIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < names.size(); i++) {
+            var name = names.get(i);
+            if (!isSidecar(name)) {
+                nameToIndex.put(name, i);
+                baseNameToIndex.putIfAbsent(FilenameUtils.getBaseName(name), i);
+            }
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            var name = names.get(i);
+            if (isSidecar(name)) {
+                var baseName = FilenameUtils.getBaseName(name);
+                var primary = nameToIndex.getOrDefault(baseName, baseNameToIndex.get(baseName));
+                if (primary != null) {
+                    primaries[i] = primary;
+                }
+            }
+        }
+
+        return primaries;
+    }
+
+    public boolean isSidecar(String name) {
+        return mExtensions.contains(FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the N slowest files of one stage in a bounded min-heap and counts
+ * outliers, files slower than OUTLIER_FACTOR times the running mean, per
+ * directory.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class SlowFileTracker {
+
+    private static final int OUTLIER_FACTOR = 10;
+    private static final int OUTLIER_MIN_SAMPLES = 32;
+    private long mCount;
+    private final PriorityQueue<Entry> mEntries;
+    private final int mLimit;
+    private final HashMap<String, Integer> mOutliers = new HashMap<>();
+    private long mTotalNanos;
+
+    public SlowFileTracker(int limit) {
+        mLimit = limit;
+        mEntries = new PriorityQueue<>(limit + 1, Comparator.comparingLong(Entry::nanos));
+    }
+
+    public synchronized void add(File file, long nanos, long size) {
+        if (mCount >= OUTLIER_MIN_SAMPLES && nanos > OUTLIER_FACTOR * (mTotalNanos / mCount)) {
+            mOutliers.merge(file.getParent(), 1, Integer::sum);
+        }
+
+        mCount++;
+        mTotalNanos += nanos;
+
+        if (mEntries.size() < mLimit) {
+            mEntries.add(new Entry(file.getPath(), nanos, size));
+        } else if (nanos > mEntries.peek().nanos()) {
+            mEntries.poll();
+            mEntries.add(new Entry(file.getPath(), nanos, size));
+        }
+    }
+
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    public synchronized List<Map.Entry<String, Integer>> getOutliers() {
+        var outliers = new ArrayList<>(mOutliers.entrySet());
+        outliers.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        return outliers;
+    }
+
+    public synchronized List<Entry> getSlowest() {
+        var slowest = new ArrayList<>(mEntries);
+        slowest.sort(Comparator.comparingLong(Entry::nanos).reversed());
+
+        return slowest;
+    }
+
+    public synchronized long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    public record Entry(String path, long nanos, long size) {
+
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Finds sources with the same content within a run.
+ * <p>
+ * Sizes are counted first, so only files that share their size with another
+ * file are kept as candidates and a file with a unique size is never read.
+ * Candidates are then grouped by a hash of their head and tail blocks, and
+ * only groups that survive are hashed completely. Each size group is hashed
+ * in parallel and released before the next one.
+ * <p>
+ * The first file of a group to be transferred becomes the original of its
+ * content, and only the files after it are duplicates. If a file fails, for
+ * example on its date or its destination, the next file of the group is
+ * tried instead.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class SourceDeduplicator {
+
+    private final HashMap<Long, ArrayList<Candidate>> mCandidates = new HashMap<>();
+    private final ContentComparator mContentComparator = ContentComparator.getInstance();
+    private long mDuplicateBytes;
+    private int mDuplicateCount;
+    private final HashMap<Integer, Group> mGroups = new HashMap<>();
+    private final HashMap<Long, Integer> mSizeCounts = new HashMap<>();
+
+    public SourceDeduplicator() {
+    }
+
+    /**
+     * Adds a file in the second pass, files with a unique size are ignored.
+     */
+    public void addCandidate(int ordinal, File file, long size) {
+        if (mSizeCounts.getOrDefault(size, 0) > 1) {
+            mCandidates.computeIfAbsent(size, k -> new ArrayList<>()).add(new Candidate(ordinal, file));
+        }
+    }
+
+    /**
+     * Counts a file size in the first pass. Empty files are never considered
+     * duplicates.
+     */
+    public void addSize(long size) {
+        if (size > 0) {
+            mSizeCounts.merge(size, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Hashes the candidates and records the duplicates.
+     *
+     * @throws InterruptedIOException if the thread is interrupted
+     */
+    public void deduplicate() throws InterruptedIOException {
+        mSizeCounts.clear();
+
+        for (var iterator = mCandidates.entrySet().iterator(); iterator.hasNext();) {
+            var entry = iterator.next();
+            long size = entry.getKey();
+            var candidates = entry.getValue();
+            iterator.remove();
+
+            for (var sampleGroup : group(candidates, candidate -> HexFormat.of().formatHex(ContentComparator.hashHeadAndTail(candidate.file())))) {
+                if (size <= ContentComparator.SAMPLE_SIZE) {
+                    // the sample covered the whole file
+                    addDuplicates(sampleGroup, size);
+                } else {
+                    for (var hashGroup : group(sampleGroup, candidate -> ContentComparator.hash(candidate.file()))) {
+                        addDuplicates(hashGroup, size);
+                    }
+                }
+            }
+        }
+    }
+
+    public long getDuplicateBytes() {
+        return mDuplicateBytes;
+    }
+
+    /**
+     * Returns the number of files found to be copies of another file.
+     */
+    public int getDuplicateCount() {
+        return mDuplicateCount;
+    }
+
+    /**
+     * Returns the file that was transferred for the content of the given
+     * file, or null if none has been so far.
+     */
+    public File getOriginal(int ordinal) {
+        var group = mGroups.get(ordinal);
+        if (group == null || group.mOriginal == null || group.mOriginal.ordinal() == ordinal) {
+            return null;
+        }
+
+        return group.mOriginal.file();
+    }
+
+    /**
+     * Records that the file was transferred, which makes it the original of
+     * its content unless another file of its group already is.
+     */
+    public void setTransferred(int ordinal) {
+        var group = mGroups.get(ordinal);
+        if (group != null && group.mOriginal == null) {
+            group.mOriginal = group.mCandidates.stream()
+                    .filter(candidate -> candidate.ordinal() == ordinal)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private void addDuplicates(List<Candidate> candidates, long size) {
+        var group = new Group(List.copyOf(candidates));
+        for (var candidate : candidates) {
+            mGroups.put(candidate.ordinal(), group);
+        }
+        mDuplicateCount += candidates.size() - 1;
+        mDuplicateBytes += size * (candidates.size() - 1);
+    }
+
+    /**
+     * Hashes the candidates in parallel and returns the groups of two or more
+     * with the same hash. Files that can't be read are left out, the transfer
+     * will report them.
+     */
+    private List<ArrayList<Candidate>> group(List<Candidate> candidates, HashFunction function) throws InterruptedIOException {
+        var futures = new ArrayList<Future<String>>(candidates.size());
+        for (var candidate : candidates) {
+            futures.add(mContentComparator.submit(() -> function.apply(candidate)));
+        }
+
+        var groups = new HashMap<String, ArrayList<Candidate>>();
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                try {
+                    groups.computeIfAbsent(futures.get(i).get(), k -> new ArrayList<>()).add(candidates.get(i));
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof InterruptedIOException interruptedIOException) {
+                        throw interruptedIOException;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        var result = new ArrayList<ArrayList<Candidate>>();
+        for (var group : groups.values()) {
+            if (group.size() > 1) {
+                result.add(group);
+            }
+        }
+
+        return result;
+    }
+
+    private record Candidate(int ordinal, File file) {
+
+    }
+
+    private static class Group {
+
+        private final List<Candidate> mCandidates;
+        private Candidate mOriginal;
+
+        public Group(List<Candidate> candidates) {
+            mCandidates = candidates;
+        }
+    }
+
+    private interface HashFunction {
+
+        String apply(Candidate candidate) throws IOException;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import se.trixon.filebydate.core.parts.DateSource;
+
+/**
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class Statistics {
+
+    private static final int SLOWEST_LIMIT = 10;
+    private final AtomicLong mBytes = new AtomicLong();
+    private final AtomicLongArray mDateSourceHits = new AtomicLongArray(DateSource.values().length);
+    private final SlowFileTracker mDateTracker = new SlowFileTracker(SLOWEST_LIMIT);
+    private final ConcurrentHashMap<File, AtomicLong> mDestBytes = new ConcurrentHashMap<>();
+    private final AtomicLong mErrors = new AtomicLong();
+    private final AtomicLong mFiles = new AtomicLong();
+    private final AtomicLong mMetadataLimited = new AtomicLong();
+    private final AtomicLong mOutOfRange = new AtomicLong();
+    private final AtomicLong mOutOfRangeScanned = new AtomicLong();
+    private final AtomicLong mQuarantined = new AtomicLong();
+    private final AtomicLong mScanNanos = new AtomicLong();
+    private final AtomicLong mSidecars = new AtomicLong();
+    private final long mStarted = System.currentTimeMillis();
+    private final SlowFileTracker mTransferTracker = new SlowFileTracker(SLOWEST_LIMIT);
+    private final AtomicLong mVerifyNanos = new AtomicLong();
+
+    public Statistics() {
+    }
+
+    /**
+     * Counts a file that got its date from the given source.
+     */
+    public void addDateSourceHit(DateSource dateSource) {
+        mDateSourceHits.incrementAndGet(dateSource.ordinal());
+    }
+
+    /**
+     * Counts bytes copied to a destination directory.
+     */
+    public void addDestBytes(File destDir, long bytes) {
+        mDestBytes.computeIfAbsent(destDir, key -> new AtomicLong()).addAndGet(bytes);
+    }
+
+    public void addError() {
+        mErrors.incrementAndGet();
+    }
+
+    public void addFile(long bytes) {
+        mFiles.incrementAndGet();
+        mBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts a metadata read that was given up for running out of time or
+     * bytes.
+     */
+    public void addMetadataLimited() {
+        mMetadataLimited.incrementAndGet();
+    }
+
+    /**
+     * Counts a file outside the date range, found so by the scan if
+     * {@code scanned} or else after its date was read.
+     */
+    public void addOutOfRange(boolean scanned) {
+        mOutOfRange.incrementAndGet();
+        if (scanned) {
+            mOutOfRangeScanned.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a metadata read skipped since the file is quarantined.
+     */
+    public void addQuarantined() {
+        mQuarantined.incrementAndGet();
+    }
+
+    public void addScanNanos(long nanos) {
+        mScanNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Counts a sidecar file dated by the file it belongs to.
+     */
+    public void addSidecar() {
+        mSidecars.incrementAndGet();
+    }
+
+    public void addVerifyNanos(long nanos) {
+        mVerifyNanos.addAndGet(nanos);
+    }
+
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    public long getDateNanos() {
+        return mDateTracker.getTotalNanos();
+    }
+
+    public long getDateSourceHits(DateSource dateSource) {
+        return mDateSourceHits.get(dateSource.ordinal());
+    }
+
+    public SlowFileTracker getDateTracker() {
+        return mDateTracker;
+    }
+
+    public long getDestBytes(File destDir) {
+        var bytes = mDestBytes.get(destDir);
+
+        return bytes == null ? 0 : bytes.get();
+    }
+
+    public long getErrors() {
+        return mErrors.get();
+    }
+
+    public long getFiles() {
+        return mFiles.get();
+    }
+
+    public long getMetadataLimited() {
+        return mMetadataLimited.get();
+    }
+
+    public long getOutOfRange() {
+        return mOutOfRange.get();
+    }
+
+    /**
+     * Returns the files the scan found outside the date range, without
+     * reading them.
+     */
+    public long getOutOfRangeScanned() {
+        return mOutOfRangeScanned.get();
+    }
+
+    public long getQuarantined() {
+        return mQuarantined.get();
+    }
+
+    public long getScanNanos() {
+        return mScanNanos.get();
+    }
+
+    public long getSidecars() {
+        return mSidecars.get();
+    }
+
+    public long getStarted() {
+        return mStarted;
+    }
+
+    public long getTransferNanos() {
+        return mTransferTracker.getTotalNanos();
+    }
+
+    public SlowFileTracker getTransferTracker() {
+        return mTransferTracker;
+    }
+
+    /**
+     * Returns the part of the transfer time spent reading copies back.
+     */
+    public long getVerifyNanos() {
+        return mVerifyNanos.get();
+    }
+}
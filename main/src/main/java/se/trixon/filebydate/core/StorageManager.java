@@ -45,8 +45,10 @@ public class StorageManager {
             .registerTypeAdapter(File.class, new FileAdapter())
             .create();
 
+    private final File mHashCacheFile;
     private final File mHistoryFile;
     private final File mLogFile;
+    private final File mQuarantineFile;
     private Storage mStorage = new Storage();
     private final TaskManager mTaskManager = TaskManager.getInstance();
     private final File mTasksBackupFile;
@@ -71,13 +73,23 @@ public class StorageManager {
         mTasksFile = new File(mUserDirectory, "tasks.json");
         mTasksBackupFile = new File(mUserDirectory, "tasks.bak");
         mHistoryFile = new File(mUserDirectory, "var/history");
+        mHashCacheFile = new File(mUserDirectory, "var/hash-cache");
         mLogFile = new File(mUserDirectory, "var/filebydate.log");
+        mQuarantineFile = new File(mUserDirectory, "var/metadata-quarantine");
+    }
+
+    public File getDryRunPlanFile(Task task) {
+        return new File(mUserDirectory, "var/plans/%s.dry-run.plan".formatted(task.getId()));
     }
 
     public int getFileFormatVersion() {
         return mStorage.getFileFormatVersion();
     }
 
+    public File getHashCacheFile() {
+        return mHashCacheFile;
+    }
+
     public File getHistoryFile() {
         return mHistoryFile;
     }
@@ -86,6 +98,14 @@ public class StorageManager {
         return mLogFile;
     }
 
+    public File getPlanFile(Task task) {
+        return new File(mUserDirectory, "var/plans/%s.plan".formatted(task.getId()));
+    }
+
+    public File getQuarantineFile() {
+        return mQuarantineFile;
+    }
+
     public TaskManager getTaskManager() {
         return mTaskManager;
     }
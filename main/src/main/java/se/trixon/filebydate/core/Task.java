@@ -17,11 +17,15 @@ package se.trixon.filebydate.core;
 
 import com.google.gson.annotations.SerializedName;
 import java.io.File;
-import java.nio.file.FileSystems;
-import java.nio.file.PathMatcher;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.ResourceBundle;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -39,6 +43,7 @@ import se.trixon.filebydate.core.parts.NameCase;
  */
 public class Task implements EditableListItem {
 
+    private transient AttributeFilter mAttributeFilter;
     private transient final ResourceBundle mBundle = NbBundle.getBundle(Task.class);
     @SerializedName("case_base")
     private NameCase mCaseBase = NameCase.UNCHANGED;
@@ -46,42 +51,93 @@ public class Task implements EditableListItem {
     @SerializedName("case_ext")
     private NameCase mCaseExt = NameCase.UNCHANGED;
     private transient String mCaseExtString;
+    @SerializedName("compare_existing")
+    private boolean mCompareExisting;
     @SerializedName("operation")
     private Command mCommand = Command.COPY;
     private transient SimpleDateFormat mDateFormat;
+    @SerializedName("date_from")
+    private String mDateFrom;
     @SerializedName("date_pattern")
     private String mDatePattern;
+    private transient DateRange mDateRange = DateRange.UNLIMITED;
     @SerializedName("date_source")
     private DateSource mDateSource = DateSource.FILE_CREATED;
+    @SerializedName("date_source_fallbacks")
+    private ArrayList<DateSource> mDateSourceFallbacks = new ArrayList<>();
     private transient String mDateSourceString;
+    @SerializedName("date_to")
+    private String mDateTo;
+    @SerializedName("deduplicate")
+    private boolean mDeduplicate;
     @SerializedName("description")
     private String mDescription;
     @SerializedName("destination")
     private File mDestDir;
+    @SerializedName("exclude")
+    private ArrayList<String> mExcludes = new ArrayList<>();
+    @SerializedName("extra_destinations")
+    private ArrayList<File> mExtraDestDirs = new ArrayList<>();
+    @SerializedName("extra_sources")
+    private ArrayList<File> mExtraSourceDirs = new ArrayList<>();
+    private transient FilenameDateParser mFilenameDateParser;
+    @SerializedName("filename_date_patterns")
+    private ArrayList<String> mFilenameDatePatterns = new ArrayList<>();
     @SerializedName("file_pattern")
     private String mFilePattern;
     @SerializedName("follow_links")
     private boolean mFollowLinks;
+    @SerializedName("group_sidecars")
+    private boolean mGroupSidecars;
     @SerializedName("uuid")
     private String mId = UUID.randomUUID().toString();
+    @SerializedName("include")
+    private ArrayList<String> mIncludes = new ArrayList<>();
     @SerializedName("last_run")
     private long mLastRun;
+    @SerializedName("last_success")
+    private long mLastSuccess;
+    @SerializedName("max_depth")
+    private int mMaxDepth;
+    @SerializedName("max_size")
+    private String mMaxSize;
+    @SerializedName("min_size")
+    private String mMinSize;
+    private transient boolean mModeClone;
     private transient boolean mModeCopy;
+    private transient boolean mModeLink;
     private transient boolean mModeMove;
+    @SerializedName("modified_from")
+    private String mModifiedFrom;
+    @SerializedName("modified_to")
+    private String mModifiedTo;
     @SerializedName("name")
     private String mName;
-    private transient PathMatcher mPathMatcher;
+    private transient PathFilter mPathFilter;
     @SerializedName("recursive")
     private boolean mRecursive;
     @SerializedName("overwrite")
     private boolean mReplaceExisting;
+    @SerializedName("sidecar_extensions")
+    private ArrayList<String> mSidecarExtensions = new ArrayList<>();
+    private transient SidecarGrouper mSidecarGrouper;
+    @SerializedName("skip_empty")
+    private boolean mSkipEmpty;
+    @SerializedName("skip_hidden")
+    private boolean mSkipHidden;
     @SerializedName("source")
     private File mSourceDir;
     private transient StringBuilder mValidationErrorBuilder = new StringBuilder();
+    @SerializedName("verify")
+    private boolean mVerify;
 
     public Task() {
     }
 
+    public AttributeFilter getAttributeFilter() {
+        return mAttributeFilter;
+    }
+
     public NameCase getCaseBase() {
         return mCaseBase;
     }
@@ -98,18 +154,58 @@ public class Task implements EditableListItem {
         return mDateFormat;
     }
 
+    public String getDateFrom() {
+        return mDateFrom;
+    }
+
     public String getDatePattern() {
         return mDatePattern;
     }
 
+    /**
+     * Returns the limits for the dates of the files to transfer.
+     */
+    public DateRange getDateRange() {
+        return mDateRange;
+    }
+
     public DateSource getDateSource() {
         return mDateSource;
     }
 
+    /**
+     * Returns the sources tried in order when the date source doesn't give a
+     * date.
+     */
+    public List<DateSource> getDateSourceFallbacks() {
+        return mDateSourceFallbacks == null ? List.of() : mDateSourceFallbacks;
+    }
+
+    public String getDateSourceFallbacksAsString() {
+        return getDateSourceFallbacks().stream()
+                .map(dateSource -> dateSource.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Returns the date source followed by its fallbacks, without repeats.
+     */
+    public List<DateSource> getDateSources() {
+        var dateSources = new LinkedHashSet<DateSource>();
+        dateSources.add(mDateSource);
+        dateSources.addAll(getDateSourceFallbacks());
+
+        return List.copyOf(dateSources);
+    }
+
     public String getDateSourceString() {
         return mDateSourceString;
     }
 
+    public String getDateTo() {
+        return mDateTo;
+    }
+
     public String getDescription() {
         return StringUtils.defaultString(mDescription);
     }
@@ -122,6 +218,56 @@ public class Task implements EditableListItem {
         return mDestDir == null ? "" : mDestDir.getPath();
     }
 
+    /**
+     * Returns the rules for file and directory names that are left out.
+     */
+    public List<String> getExcludes() {
+        return mExcludes == null ? List.of() : mExcludes;
+    }
+
+    public String getExcludesAsString() {
+        return String.join(" ", getExcludes());
+    }
+
+    /**
+     * Returns the destination roots that get a copy of every file in
+     * addition to the destination.
+     */
+    public List<File> getExtraDestDirs() {
+        return mExtraDestDirs == null ? List.of() : mExtraDestDirs;
+    }
+
+    public String getExtraDestDirsAsString() {
+        return joinPaths(getExtraDestDirs());
+    }
+
+    /**
+     * Returns the source roots that are scanned in addition to the source.
+     */
+    public List<File> getExtraSourceDirs() {
+        return mExtraSourceDirs == null ? List.of() : mExtraSourceDirs;
+    }
+
+    public String getExtraSourceDirsAsString() {
+        return joinPaths(getExtraSourceDirs());
+    }
+
+    public FilenameDateParser getFilenameDateParser() {
+        return mFilenameDateParser;
+    }
+
+    /**
+     * Returns the patterns tried before the built-in ones when dates are
+     * read from file names.
+     */
+    public List<String> getFilenameDatePatterns() {
+        return mFilenameDatePatterns == null ? List.of() : mFilenameDatePatterns;
+    }
+
+    public String getFilenameDatePatternsAsString() {
+        return String.join(" ", getFilenameDatePatterns());
+    }
+
     public String getFilePattern() {
         return mFilePattern;
     }
@@ -130,21 +276,113 @@ public class Task implements EditableListItem {
         return mId;
     }
 
+    /**
+     * Returns the rules for file names that are included in addition to the
+     * file pattern.
+     */
+    public List<String> getIncludes() {
+        return mIncludes == null ? List.of() : mIncludes;
+    }
+
+    public String getIncludesAsString() {
+        return String.join(" ", getIncludes());
+    }
+
     public long getLastRun() {
         return mLastRun;
     }
 
+    /**
+     * Returns when the last real run that finished without errors ended.
+     */
+    public long getLastSuccess() {
+        return mLastSuccess;
+    }
+
+    /**
+     * Returns how many levels below a source root files are picked up from
+     * when recursive, or 0 for no limit.
+     */
+    public int getMaxDepth() {
+        return mMaxDepth;
+    }
+
+    public String getMaxSize() {
+        return mMaxSize;
+    }
+
+    public String getMinSize() {
+        return mMinSize;
+    }
+
+    public String getModifiedFrom() {
+        return mModifiedFrom;
+    }
+
+    public String getModifiedTo() {
+        return mModifiedTo;
+    }
+
     @Override
     public String getName() {
         return mName;
     }
 
     public int getOperation() {
-        return mModeCopy ? 0 : 1;
+        return mCommand.ordinal();
     }
 
-    public PathMatcher getPathMatcher() {
-        return mPathMatcher;
+    public PathFilter getPathFilter() {
+        return mPathFilter;
+    }
+
+    /**
+     * Returns a key identifying the settings that affect a plan.
+     */
+    public String getPlanKey() {
+        return String.join("|",
+                getSourceDirAsString(),
+                getExtraSourceDirsAsString(),
+                mFilePattern,
+                getIncludesAsString(),
+                getExcludesAsString(),
+                getDestDirAsString(),
+                mDatePattern,
+                getDateSources().toString(),
+                getFilenameDatePatternsAsString(),
+                Objects.toString(mDateFrom, ""),
+                Objects.toString(mDateTo, ""),
+                mCommand.name(),
+                mCaseBase.name(),
+                mCaseExt.name(),
+                String.valueOf(mRecursive),
+                String.valueOf(mFollowLinks),
+                String.valueOf(mMaxDepth),
+                Objects.toString(mMinSize, ""),
+                Objects.toString(mMaxSize, ""),
+                Objects.toString(mModifiedFrom, ""),
+                Objects.toString(mModifiedTo, ""),
+                String.valueOf(mSkipHidden),
+                String.valueOf(mSkipEmpty),
+                String.valueOf(mDeduplicate),
+                mGroupSidecars ? getSidecarExtensionsAsString() : ""
+        );
+    }
+
+    /**
+     * Returns the extensions of the files that follow the file they belong
+     * to, or the default ones if none are set.
+     */
+    public List<String> getSidecarExtensions() {
+        return mSidecarExtensions == null || mSidecarExtensions.isEmpty() ? SidecarGrouper.DEFAULT_EXTENSIONS : mSidecarExtensions;
+    }
+
+    public String getSidecarExtensionsAsString() {
+        return String.join(" ", getSidecarExtensions());
+    }
+
+    public SidecarGrouper getSidecarGrouper() {
+        return mSidecarGrouper;
     }
 
     public File getSourceDir() {
@@ -155,14 +393,45 @@ public class Task implements EditableListItem {
         return mSourceDir == null ? "" : mSourceDir.getPath();
     }
 
+    /**
+     * Returns the source followed by the extra sources.
+     */
+    public List<File> getSourceDirs() {
+        var sourceDirs = new ArrayList<File>();
+        sourceDirs.add(mSourceDir);
+        sourceDirs.addAll(getExtraSourceDirs());
+
+        return sourceDirs;
+    }
+
+    public String getSourceDirsAsString() {
+        return joinPaths(getSourceDirs());
+    }
+
     public String getValidationError() {
         return mValidationErrorBuilder.toString();
     }
 
+    public boolean isCompareExisting() {
+        return mCompareExisting;
+    }
+
+    public boolean isDeduplicate() {
+        return mDeduplicate;
+    }
+
     public boolean isFollowLinks() {
         return mFollowLinks;
     }
 
+    /**
+     * Whether sidecar files are dated by and transferred with the file they
+     * belong to.
+     */
+    public boolean isGroupSidecars() {
+        return mGroupSidecars;
+    }
+
     public boolean isRecursive() {
         return mRecursive;
     }
@@ -171,19 +440,65 @@ public class Task implements EditableListItem {
         return mReplaceExisting;
     }
 
+    public boolean isSkipEmpty() {
+        return mSkipEmpty;
+    }
+
+    public boolean isSkipHidden() {
+        return mSkipHidden;
+    }
+
     public boolean isValid() {
         mValidationErrorBuilder = new StringBuilder();
 
-        if (mModeCopy == mModeMove) {
+        if (getModeCommand() == null) {
             addValidationError(mBundle.getString("invalid_command"));
         } else {
             updateCommand();
         }
 
         try {
-            mPathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + mFilePattern);
-        } catch (Exception e) {
-            addValidationError("invalid file pattern: " + mFilePattern);
+            mPathFilter = new PathFilter(Objects.toString(mFilePattern, "*"), getIncludes(), getExcludes());
+        } catch (IllegalArgumentException e) {
+            mPathFilter = null;
+            addValidationError(String.format(mBundle.getString("invalid_filter"), e.getMessage()));
+        }
+
+        mAttributeFilter = null;
+        try {
+            mAttributeFilter = new AttributeFilter(
+                    RunBudget.parseBytes(mMinSize),
+                    StringUtils.isBlank(mMaxSize) ? Long.MAX_VALUE : RunBudget.parseBytes(mMaxSize),
+                    AttributeFilter.parseTime(mModifiedFrom, false, Long.MIN_VALUE),
+                    AttributeFilter.parseTime(mModifiedTo, true, Long.MAX_VALUE),
+                    mSkipHidden,
+                    mSkipEmpty
+            );
+        } catch (IllegalArgumentException e) {
+            addValidationError(e.getMessage());
+        }
+
+        mSidecarGrouper = new SidecarGrouper(mGroupSidecars ? getSidecarExtensions() : List.of());
+
+        mFilenameDateParser = null;
+        try {
+            mFilenameDateParser = new FilenameDateParser(getFilenameDatePatterns());
+        } catch (IllegalArgumentException e) {
+            addValidationError(e.getMessage());
+        }
+
+        mDateRange = DateRange.UNLIMITED;
+        try {
+            mDateRange = new DateRange(
+                    AttributeFilter.parseTime(mDateFrom, false, Long.MIN_VALUE),
+                    AttributeFilter.parseTime(mDateTo, true, Long.MAX_VALUE)
+            );
+        } catch (IllegalArgumentException e) {
+            addValidationError(e.getMessage());
+        }
+
+        if (mMaxDepth < 0) {
+            addValidationError(String.format(mBundle.getString("invalid_max_depth"), mMaxDepth));
         }
 
         try {
@@ -194,7 +509,9 @@ public class Task implements EditableListItem {
 
         if (mDateSourceString != null) {
             try {
-                mDateSource = DateSource.valueOf(mDateSourceString.toUpperCase());
+                var dateSources = DateSource.parseList(mDateSourceString);
+                mDateSource = dateSources.get(0);
+                mDateSourceFallbacks = new ArrayList<>(dateSources.subList(1, dateSources.size()));
             } catch (Exception e) {
                 addValidationError(String.format(mBundle.getString("invalid_date_source"), mDateSourceString));
             }
@@ -219,13 +536,43 @@ public class Task implements EditableListItem {
             addValidationError(String.format(mBundle.getString("invalid_source_dir"), mSourceDir));
         }
 
+        var sourceDirs = getSourceDirs();
+        for (int i = 1; i < sourceDirs.size(); i++) {
+            var extraSourceDir = sourceDirs.get(i);
+            if (!extraSourceDir.isDirectory()) {
+                addValidationError(String.format(mBundle.getString("invalid_source_dir"), extraSourceDir));
+            } else if (mSourceDir != null) {
+                var path = extraSourceDir.toPath().toAbsolutePath().normalize();
+                for (int j = 0; j < i; j++) {
+                    var otherPath = sourceDirs.get(j).toPath().toAbsolutePath().normalize();
+                    if (path.startsWith(otherPath) || otherPath.startsWith(path)) {
+                        addValidationError(String.format(mBundle.getString("overlapping_sources"), extraSourceDir, sourceDirs.get(j)));
+                    }
+                }
+            }
+        }
+
         if (mDestDir == null || !mDestDir.isDirectory()) {
             addValidationError(String.format(mBundle.getString("invalid_dest_dir"), mDestDir));
         }
 
+        for (var extraDestDir : getExtraDestDirs()) {
+            if (!extraDestDir.isDirectory() || extraDestDir.equals(mDestDir)) {
+                addValidationError(String.format(mBundle.getString("invalid_dest_dir"), extraDestDir));
+            }
+        }
+
         return mValidationErrorBuilder.length() == 0;
     }
 
+    /**
+     * Whether copies are hashed while copying, read back and listed in a
+     * checksum file per destination directory.
+     */
+    public boolean isVerify() {
+        return mVerify;
+    }
+
     public void setCaseBase(NameCase caseBase) {
         mCaseBase = caseBase;
     }
@@ -246,6 +593,14 @@ public class Task implements EditableListItem {
         mCommand = operationMode;
     }
 
+    public void setCompareExisting(boolean compareExisting) {
+        mCompareExisting = compareExisting;
+    }
+
+    public void setDateFrom(String dateFrom) {
+        mDateFrom = dateFrom;
+    }
+
     public void setDatePattern(String datePattern) {
         mDatePattern = datePattern;
     }
@@ -254,10 +609,26 @@ public class Task implements EditableListItem {
         mDateSource = dateSource;
     }
 
+    public void setDateSourceFallbacks(List<DateSource> dateSourceFallbacks) {
+        mDateSourceFallbacks = new ArrayList<>(dateSourceFallbacks);
+    }
+
+    /**
+     * Sets the date source, or a comma separated chain of sources where the
+     * first one is the date source and the rest its fallbacks.
+     */
     public void setDateSourceString(String dateSourceString) {
         mDateSourceString = dateSourceString;
     }
 
+    public void setDateTo(String dateTo) {
+        mDateTo = dateTo;
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        mDeduplicate = deduplicate;
+    }
+
     public void setDescription(String description) {
         mDescription = description;
     }
@@ -266,6 +637,51 @@ public class Task implements EditableListItem {
         mDestDir = dest;
     }
 
+    public void setExcludes(List<String> excludes) {
+        mExcludes = new ArrayList<>(excludes);
+    }
+
+    /**
+     * Sets the exclude rules from patterns separated by white space.
+     */
+    public void setExcludesString(String excludes) {
+        setExcludes(splitPatterns(excludes));
+    }
+
+    public void setExtraDestDirs(List<File> extraDestDirs) {
+        mExtraDestDirs = new ArrayList<>(extraDestDirs);
+    }
+
+    /**
+     * Sets the extra destinations from paths separated by the path separator.
+     */
+    public void setExtraDestDirsString(String extraDestDirs) {
+        setExtraDestDirs(splitPaths(extraDestDirs));
+    }
+
+    public void setExtraSourceDirs(List<File> extraSourceDirs) {
+        mExtraSourceDirs = new ArrayList<>(extraSourceDirs);
+    }
+
+    /**
+     * Sets the extra sources from paths separated by the path separator.
+     */
+    public void setExtraSourceDirsString(String extraSourceDirs) {
+        setExtraSourceDirs(splitPaths(extraSourceDirs));
+    }
+
+    public void setFilenameDatePatterns(List<String> filenameDatePatterns) {
+        mFilenameDatePatterns = new ArrayList<>(filenameDatePatterns);
+    }
+
+    /**
+     * Sets the file name date patterns from patterns separated by white
+     * space.
+     */
+    public void setFilenameDatePatternsString(String filenameDatePatterns) {
+        setFilenameDatePatterns(splitPatterns(filenameDatePatterns));
+    }
+
     public void setFilePattern(String filePattern) {
         mFilePattern = filePattern;
     }
@@ -274,40 +690,85 @@ public class Task implements EditableListItem {
         mFollowLinks = links;
     }
 
+    public void setGroupSidecars(boolean groupSidecars) {
+        mGroupSidecars = groupSidecars;
+    }
+
     public void setId(String id) {
         mId = id;
     }
 
+    public void setIncludes(List<String> includes) {
+        mIncludes = new ArrayList<>(includes);
+    }
+
+    /**
+     * Sets the include rules from patterns separated by white space.
+     */
+    public void setIncludesString(String includes) {
+        setIncludes(splitPatterns(includes));
+    }
+
     public void setLastRun(long lastRun) {
         mLastRun = lastRun;
     }
 
+    public void setLastSuccess(long lastSuccess) {
+        mLastSuccess = lastSuccess;
+    }
+
+    public void setModeClone(boolean modeClone) {
+        this.mModeClone = modeClone;
+    }
+
     public void setModeCopy(boolean modeCopy) {
         this.mModeCopy = modeCopy;
     }
 
+    public void setModeLink(boolean modeLink) {
+        this.mModeLink = modeLink;
+    }
+
     public void setModeMove(boolean modeMove) {
         this.mModeMove = modeMove;
     }
 
+    public void setMaxDepth(int maxDepth) {
+        mMaxDepth = maxDepth;
+    }
+
+    public void setMaxSize(String maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    public void setMinSize(String minSize) {
+        mMinSize = minSize;
+    }
+
+    public void setModifiedFrom(String modifiedFrom) {
+        mModifiedFrom = modifiedFrom;
+    }
+
+    public void setModifiedTo(String modifiedTo) {
+        mModifiedTo = modifiedTo;
+    }
+
     public void setName(String name) {
         mName = name;
     }
 
     public void setOperation(int index) {
-        if (index == 0) {
-            mModeCopy = true;
-            mModeMove = false;
-        } else {
-            mModeCopy = false;
-            mModeMove = true;
-        }
+        var command = Command.values()[index];
+        mModeClone = command == Command.CLONE;
+        mModeCopy = command == Command.COPY;
+        mModeLink = command == Command.LINK;
+        mModeMove = command == Command.MOVE;
 
         updateCommand();
     }
 
-    public void setPathMatcher(PathMatcher pathMatcher) {
-        mPathMatcher = pathMatcher;
+    public void setPathFilter(PathFilter pathFilter) {
+        mPathFilter = pathFilter;
     }
 
     public void setRecursive(boolean recursive) {
@@ -318,6 +779,25 @@ public class Task implements EditableListItem {
         mReplaceExisting = replaceExisting;
     }
 
+    public void setSidecarExtensions(List<String> sidecarExtensions) {
+        mSidecarExtensions = new ArrayList<>(sidecarExtensions);
+    }
+
+    /**
+     * Sets the sidecar extensions from extensions separated by white space.
+     */
+    public void setSidecarExtensionsString(String sidecarExtensions) {
+        setSidecarExtensions(splitPatterns(sidecarExtensions));
+    }
+
+    public void setSkipEmpty(boolean skipEmpty) {
+        mSkipEmpty = skipEmpty;
+    }
+
+    public void setSkipHidden(boolean skipHidden) {
+        mSkipHidden = skipHidden;
+    }
+
     public void setSourceAndDest(String source, String dest) {
         if (ObjectUtils.anyNull(source, dest)) {
             return;
@@ -340,6 +820,10 @@ public class Task implements EditableListItem {
         mSourceDir = source;
     }
 
+    public void setVerify(boolean verify) {
+        mVerify = verify;
+    }
+
     public String toDebugString() {
         isValid();
         String s = String.format(mBundle.getString("profile"),
@@ -355,7 +839,26 @@ public class Task implements EditableListItem {
 
         conditionalAppendDebugOption(b, mFollowLinks, Dict.FOLLOW_LINKS.toString());
         conditionalAppendDebugOption(b, mRecursive, Dict.RECURSIVE.toString());
+        conditionalAppendDebugOption(b, mRecursive && mMaxDepth > 0, mBundle.getString("max_depth") + " " + mMaxDepth);
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mMinSize), mBundle.getString("min_size") + " " + mMinSize);
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mMaxSize), mBundle.getString("max_size") + " " + mMaxSize);
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mModifiedFrom), mBundle.getString("modified_from") + " " + mModifiedFrom);
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mModifiedTo), mBundle.getString("modified_to") + " " + mModifiedTo);
+        conditionalAppendDebugOption(b, !getDateSourceFallbacks().isEmpty(), mBundle.getString("date_source_fallbacks") + " " + getDateSourceFallbacksAsString());
+        conditionalAppendDebugOption(b, !getFilenameDatePatterns().isEmpty(), mBundle.getString("filename_date_patterns") + " " + getFilenameDatePatternsAsString());
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mDateFrom), mBundle.getString("date_from") + " " + mDateFrom);
+        conditionalAppendDebugOption(b, StringUtils.isNotBlank(mDateTo), mBundle.getString("date_to") + " " + mDateTo);
+        conditionalAppendDebugOption(b, mSkipHidden, mBundle.getString("skip_hidden"));
+        conditionalAppendDebugOption(b, mSkipEmpty, mBundle.getString("skip_empty"));
         conditionalAppendDebugOption(b, mReplaceExisting, Dict.REPLACE.toString());
+        conditionalAppendDebugOption(b, mCompareExisting, mBundle.getString("compare_existing"));
+        conditionalAppendDebugOption(b, mDeduplicate, mBundle.getString("deduplicate"));
+        conditionalAppendDebugOption(b, mGroupSidecars, mBundle.getString("group_sidecars") + " " + getSidecarExtensionsAsString());
+        conditionalAppendDebugOption(b, mVerify, mBundle.getString("verify"));
+        conditionalAppendDebugOption(b, !getIncludes().isEmpty(), mBundle.getString("include") + " " + getIncludesAsString());
+        conditionalAppendDebugOption(b, !getExcludes().isEmpty(), mBundle.getString("exclude") + " " + getExcludesAsString());
+        conditionalAppendDebugOption(b, !getExtraSourceDirs().isEmpty(), mBundle.getString("extra_sources") + " " + getExtraSourceDirsAsString());
+        conditionalAppendDebugOption(b, !getExtraDestDirs().isEmpty(), mBundle.getString("extra_destinations") + " " + getExtraDestDirsAsString());
         conditionalAppendDebugOption(b, mCaseBase != NameCase.UNCHANGED, Dict.BASENAME.toString() + " " + mCaseBase);
         conditionalAppendDebugOption(b, mCaseExt != NameCase.UNCHANGED, Dict.EXTENSION.toString() + " " + mCaseExt);
 
@@ -378,7 +881,47 @@ public class Task implements EditableListItem {
         }
     }
 
+    /**
+     * Returns the command of the selected mode, or null unless exactly one
+     * mode is selected.
+     */
+    private Command getModeCommand() {
+        var modes = new boolean[]{mModeCopy, mModeMove, mModeLink, mModeClone};
+        Command command = null;
+        for (int i = 0; i < modes.length; i++) {
+            if (modes[i]) {
+                if (command != null) {
+                    return null;
+                }
+                command = Command.values()[i];
+            }
+        }
+
+        return command;
+    }
+
+    private String joinPaths(List<File> files) {
+        return files.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private List<File> splitPaths(String paths) {
+        var files = new ArrayList<File>();
+        if (StringUtils.isNotBlank(paths)) {
+            for (var path : paths.split(File.pathSeparator)) {
+                if (!path.isBlank()) {
+                    files.add(new File(path.trim()));
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private List<String> splitPatterns(String patterns) {
+        return StringUtils.isBlank(patterns) ? List.of() : List.of(patterns.trim().split("\\s+"));
+    }
+
     private void updateCommand() {
-        mCommand = mModeCopy ? Command.COPY : Command.MOVE;
+        mCommand = getModeCommand();
     }
 }
@@ -15,18 +15,29 @@
  */
 package se.trixon.filebydate.core.parts;
 
+import java.util.Locale;
+import org.openide.util.NbBundle;
 import se.trixon.almond.util.Dict;
+import se.trixon.filebydate.ui.MainTopComponent;
 
 /**
+ * LINK creates hard links and CLONE reflinks, copy-on-write copies that share
+ * their blocks with the source. Both fall back to a copy where the file
+ * system can't do it. New commands go last, plan files store the ordinal.
  *
  * @author Patrik Karlström <patrik@trixon.se>
  */
 public enum Command {
-    COPY, MOVE;
+    COPY, MOVE, LINK, CLONE;
 
     @Override
     public String toString() {
-        return Dict.valueOf(name()).toString();
+        return switch (this) {
+            case COPY, MOVE ->
+                Dict.valueOf(name()).toString();
+            default ->
+                NbBundle.getMessage(MainTopComponent.class, "command_" + name().toLowerCase(Locale.ROOT));
+        };
     }
 
 }
@@ -15,6 +15,8 @@
  */
 package se.trixon.filebydate.core.parts;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import org.openide.util.NbBundle;
@@ -28,12 +30,48 @@ public enum DateSource {
 
     EXIF_ORIGINAL,
     FILE_CREATED,
-    FILE_MODIFIED;
+    FILE_MODIFIED,
+    FILE_NAME,
+    QUICKTIME_CREATED;
     private final ResourceBundle mBundle = NbBundle.getBundle(MainTopComponent.class);
 
+    /**
+     * Parses source names, like {@code file_name} or {@code exif_original},
+     * separated by commas or white space.
+     *
+     * @throws IllegalArgumentException if a name is unknown
+     */
+    public static List<DateSource> parseList(String names) {
+        var dateSources = new ArrayList<DateSource>();
+        if (names != null) {
+            for (var name : names.trim().split("[\\s,]+")) {
+                if (!name.isEmpty()) {
+                    dateSources.add(valueOf(name.toUpperCase(Locale.ROOT)));
+                }
+            }
+        }
+
+        return dateSources;
+    }
+
     private DateSource() {
     }
 
+    /**
+     * Whether the date comes from the file attributes read by the scan, so
+     * it is always found and costs no I/O.
+     */
+    public boolean isAttribute() {
+        return this == FILE_CREATED || this == FILE_MODIFIED;
+    }
+
+    /**
+     * Whether the date is read from inside the file.
+     */
+    public boolean readsContent() {
+        return this == EXIF_ORIGINAL || this == QUICKTIME_CREATED;
+    }
+
     @Override
     public String toString() {
         return mBundle.getString("dateSource_" + name().toLowerCase(Locale.ROOT));
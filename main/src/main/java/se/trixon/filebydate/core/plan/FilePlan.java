@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core.plan;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Column oriented list of planned files.
+ * <p>
+ * Directories are interned in a table and names are stored back to back in a
+ * shared char arena, so a planned file costs 44 bytes plus two bytes per name
+ * character: dir (4), name offset (4), size (8), modified (8), created (8),
+ * date (8) and sort order (4). Sorting briefly takes another 4 bytes per file
+ * for the merge buffer.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class FilePlan {
+
+    public static final long NO_DATE = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    private char[] mChars = new char[INITIAL_CAPACITY * 16];
+    private int mCharCount;
+    private long[] mCreated = new long[INITIAL_CAPACITY];
+    private long[] mDates = new long[INITIAL_CAPACITY];
+    private final HashMap<String, Integer> mDirToIndex = new HashMap<>();
+    private int[] mDirs = new int[INITIAL_CAPACITY];
+    private final ArrayList<String> mDirTable = new ArrayList<>();
+    private long[] mModified = new long[INITIAL_CAPACITY];
+    private int[] mNameOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] mOrder;
+    private int mSize;
+    private long[] mSizes = new long[INITIAL_CAPACITY];
+
+    public FilePlan() {
+    }
+
+    public int add(String dir, String name, long size, long modified, long created) {
+        ensureCapacity(mSize + 1, name.length());
+
+        var dirIndex = mDirToIndex.get(dir);
+        if (dirIndex == null) {
+            dirIndex = mDirTable.size();
+            mDirTable.add(dir);
+            mDirToIndex.put(dir, dirIndex);
+        }
+
+        name.getChars(0, name.length(), mChars, mCharCount);
+        mCharCount += name.length();
+
+        int index = mSize++;
+        mDirs[index] = dirIndex;
+        mNameOffsets[index + 1] = mCharCount;
+        mSizes[index] = size;
+        mModified[index] = modified;
+        mCreated[index] = created;
+        mDates[index] = NO_DATE;
+        mOrder = null;
+
+        return index;
+    }
+
+    public long getCreated(int index) {
+        return mCreated[index];
+    }
+
+    public long getDate(int index) {
+        return mDates[index];
+    }
+
+    public String getDir(int index) {
+        return mDirTable.get(mDirs[index]);
+    }
+
+    public File getFile(int index) {
+        return new File(getDir(index), getName(index));
+    }
+
+    public long getModified(int index) {
+        return mModified[index];
+    }
+
+    public String getName(int index) {
+        return new String(mChars, mNameOffsets[index], mNameOffsets[index + 1] - mNameOffsets[index]);
+    }
+
+    public long getSize(int index) {
+        return mSizes[index];
+    }
+
+    /**
+     * Returns the index of the file at the given position in sorted order, or
+     * in insertion order if the plan hasn't been sorted.
+     */
+    public int getSortedIndex(int position) {
+        return mOrder == null ? position : mOrder[position];
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void setDate(int index, long date) {
+        mDates[index] = date;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Sorts by directory, then by name, without touching the columns.
+     */
+    public void sort() {
+        var sortedDirs = new ArrayList<>(mDirTable);
+        sortedDirs.sort(null);
+        var dirRanks = new int[sortedDirs.size()];
+        for (int rank = 0; rank < dirRanks.length; rank++) {
+            dirRanks[mDirToIndex.get(sortedDirs.get(rank))] = rank;
+        }
+
+        var order = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            order[i] = i;
+        }
+
+        mergeSort(order, new int[mSize], 0, mSize, dirRanks);
+        mOrder = order;
+    }
+
+    private int compare(int a, int b, int[] dirRanks) {
+        int result = Integer.compare(dirRanks[mDirs[a]], dirRanks[mDirs[b]]);
+        if (result != 0) {
+            return result;
+        }
+
+        return Arrays.compare(mChars, mNameOffsets[a], mNameOffsets[a + 1], mChars, mNameOffsets[b], mNameOffsets[b + 1]);
+    }
+
+    private void ensureCapacity(int size, int nameLength) {
+        if (size > mSizes.length) {
+            int capacity = Math.max(size, mSizes.length + (mSizes.length >> 1));
+            mCreated = Arrays.copyOf(mCreated, capacity);
+            mDates = Arrays.copyOf(mDates, capacity);
+            mDirs = Arrays.copyOf(mDirs, capacity);
+            mModified = Arrays.copyOf(mModified, capacity);
+            mNameOffsets = Arrays.copyOf(mNameOffsets, capacity + 1);
+            mSizes = Arrays.copyOf(mSizes, capacity);
+        }
+
+        if (mCharCount + nameLength > mChars.length) {
+            mChars = Arrays.copyOf(mChars, Math.max(mCharCount + nameLength, mChars.length + (mChars.length >> 1)));
+        }
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to, int[] dirRanks) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle, dirRanks);
+        mergeSort(order, buffer, middle, to, dirRanks);
+
+        if (compare(order[middle - 1], order[middle], dirRanks) <= 0) {
+            return;
+        }
+
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(buffer[left], buffer[right], dirRanks) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core.plan;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import se.trixon.filebydate.core.parts.Command;
+
+/**
+ * Layout of the append-only plan file.
+ * <p>
+ * The header holds magic, version, state, source count, the position of the
+ * first target record, a checkpoint, a random id of the plan, a planning
+ * checkpoint, a key identifying the task settings and the task id. The
+ * checkpoint is the position of the first target left by a run that stopped
+ * early, and the number of targets before it. The id ties the transfer
+ * journal to the plan it was written for. The planning checkpoint is the end
+ * of the targets of a scanned plan whose planning stopped early, and the
+ * number of sources they were planned from. It is followed
+ * by records of the form {@code [int length][byte type][payload]}, where the
+ * length includes the type byte. A zero length marks the end of the data.
+ * Sources are written during the scan, targets during planning.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public final class PlanFile {
+
+    public static final int MAGIC = 0x46424450;
+    public static final int VERSION = 6;
+    static final int OFFSET_CHECKPOINT = 24;
+    static final int OFFSET_CHECKPOINT_COUNT = 32;
+    static final int OFFSET_COUNT = 12;
+    static final int OFFSET_ID = 36;
+    static final int OFFSET_KEY = 56;
+    static final int OFFSET_PLANNED = 44;
+    static final int OFFSET_PLANNED_COUNT = 52;
+    static final int OFFSET_STATE = 8;
+    static final int OFFSET_TARGETS = 16;
+    static final byte TYPE_DIR = 1;
+    static final byte TYPE_PLAN_END = 5;
+    static final byte TYPE_SCAN_END = 3;
+    static final byte TYPE_SOURCE = 2;
+    static final byte TYPE_TARGET = 4;
+
+    /**
+     * Returns the state of the plan file, or null if it doesn't exist, can't
+     * be read or was written for other task settings.
+     */
+    public static State readState(File file, String key) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (var reader = new PlanReader(file)) {
+            return key.equals(reader.getKey()) ? reader.getState() : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    public static void writeCheckpoint(File file, long position, int count) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(position).putInt(count).flip(), OFFSET_CHECKPOINT);
+            channel.force(false);
+        }
+    }
+
+    public static void writeState(File file, State state) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, state.ordinal()), OFFSET_STATE);
+            channel.force(false);
+        }
+    }
+
+    private PlanFile() {
+    }
+
+    public enum State {
+        SCANNING, SCANNED, PLANNED, DONE;
+    }
+
+    public record Source(String dir, String name, long size, long modified, long created) {
+
+        public File getFile() {
+            return new File(dir, name);
+        }
+    }
+
+    public record Target(String source, String dest, Command command, long size, long modified, long date) {
+
+        public File getDestFile() {
+            return new File(dest);
+        }
+
+        public File getSourceFile() {
+            return new File(source);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core.plan;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import se.trixon.filebydate.core.parts.Command;
+import static se.trixon.filebydate.core.plan.PlanFile.*;
+
+/**
+ * Streams records from a plan file through a sliding memory-mapped region.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class PlanReader implements Closeable {
+
+    private static final long REGION_SIZE = 8L << 20;
+    private MappedByteBuffer mBuffer;
+    private final FileChannel mChannel;
+    private final long mCheckpoint;
+    private final int mCheckpointCount;
+    private final int mCount;
+    private String mCurrentDir;
+    private final long mId;
+    private final String mKey;
+    private final long mPlanned;
+    private final int mPlannedCount;
+    private long mPosition;
+    private long mRegionStart;
+    private final State mState;
+    private final long mTargetsPosition;
+    private final String mTaskId;
+
+    public PlanReader(File file) throws IOException {
+        mChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            var header = ByteBuffer.allocate(OFFSET_KEY);
+            mChannel.read(header, 0);
+            header.flip();
+            if (header.remaining() < header.capacity() || header.getInt() != MAGIC) {
+                throw new IOException("Not a plan file: " + file);
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported plan file version %d: %s".formatted(version, file));
+            }
+
+            mState = State.values()[header.getInt()];
+            mCount = header.getInt();
+            mTargetsPosition = header.getLong();
+            mCheckpoint = header.getLong();
+            mCheckpointCount = header.getInt();
+            mId = header.getLong();
+            mPlanned = header.getLong();
+            mPlannedCount = header.getInt();
+
+            mPosition = OFFSET_KEY;
+            mKey = readHeaderString();
+            mTaskId = readHeaderString();
+        } catch (IOException | RuntimeException ex) {
+            mChannel.close();
+            throw ex instanceof IOException ioException ? ioException : new IOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    /**
+     * Returns the number of targets handled before the checkpoint.
+     */
+    public int getCheckpointCount() {
+        return mCheckpoint > 0 ? mCheckpointCount : 0;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the random id written with the plan.
+     */
+    public long getId() {
+        return mId;
+    }
+
+    public String getKey() {
+        return mKey;
+    }
+
+    /**
+     * Returns the number of sources planned before the planning checkpoint.
+     */
+    public int getPlannedCount() {
+        return mPlanned > 0 ? mPlannedCount : 0;
+    }
+
+    /**
+     * Returns the end of the targets before the planning checkpoint.
+     */
+    public long getPlannedPosition() {
+        return mPlanned > 0 ? mPlanned : mTargetsPosition;
+    }
+
+    /**
+     * Returns the file position of the next record.
+     */
+    public long getPosition() {
+        return mPosition;
+    }
+
+    public State getState() {
+        return mState;
+    }
+
+    public String getTaskId() {
+        return mTaskId;
+    }
+
+    /**
+     * Returns the next source, or null at the end of the source section.
+     */
+    public Source nextSource() throws IOException {
+        for (var type = nextRecord(); type != 0; type = nextRecord()) {
+            switch (type) {
+                case TYPE_DIR ->
+                    mCurrentDir = getString();
+                case TYPE_SOURCE -> {
+                    return new Source(mCurrentDir, getString(), mBuffer.getLong(), mBuffer.getLong(), mBuffer.getLong());
+                }
+                case TYPE_SCAN_END -> {
+                    return null;
+                }
+                default ->
+                    throw new IOException("Unexpected record type in source section: " + type);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the next target, or null at the end of the plan.
+     */
+    public Target nextTarget() throws IOException {
+        var type = nextRecord();
+        if (type == 0 || type == TYPE_PLAN_END) {
+            return null;
+        } else if (type != TYPE_TARGET) {
+            throw new IOException("Unexpected record type in target section: " + type);
+        }
+
+        return new Target(
+                getString(),
+                getString(),
+                Command.values()[mBuffer.get()],
+                mBuffer.getLong(),
+                mBuffer.getLong(),
+                mBuffer.getLong()
+        );
+    }
+
+    public void seek(long position) {
+        mPosition = position;
+        mBuffer = null;
+    }
+
+    /**
+     * Positions the reader at the checkpoint, or at the first target if there
+     * is none.
+     */
+    public void seekCheckpoint() {
+        seek(mCheckpoint > 0 ? mCheckpoint : mTargetsPosition);
+    }
+
+    public void seekTargets() {
+        seek(mTargetsPosition);
+    }
+
+    private boolean ensure(int length) throws IOException {
+        long bufferPosition = mPosition - mRegionStart;
+        if (mBuffer == null || bufferPosition < 0 || bufferPosition + length > mBuffer.limit()) {
+            long available = mChannel.size() - mPosition;
+            if (available < length) {
+                return false;
+            }
+
+            mRegionStart = mPosition;
+            mBuffer = mChannel.map(FileChannel.MapMode.READ_ONLY, mRegionStart, Math.min(available, Math.max(REGION_SIZE, length)));
+        }
+
+        mBuffer.position((int) (mPosition - mRegionStart));
+
+        return true;
+    }
+
+    private String readHeaderString() throws IOException {
+        var length = ByteBuffer.allocate(Integer.BYTES);
+        mChannel.read(length, mPosition);
+        var bytes = ByteBuffer.allocate(length.getInt(0));
+        mChannel.read(bytes, mPosition + Integer.BYTES);
+        mPosition += Integer.BYTES + bytes.capacity();
+
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    private String getString() {
+        var bytes = new byte[mBuffer.getInt()];
+        mBuffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Positions the buffer at the payload of the next record and returns its
+     * type, or 0 at the end of the data.
+     */
+    private byte nextRecord() throws IOException {
+        if (!ensure(Integer.BYTES)) {
+            return 0;
+        }
+
+        int length = mBuffer.getInt();
+        if (length <= 0 || !ensure(Integer.BYTES + length)) {
+            return 0;
+        }
+
+        mBuffer.position(mBuffer.position() + Integer.BYTES);
+        mPosition += Integer.BYTES + length;
+
+        return mBuffer.get();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core.plan;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import static se.trixon.filebydate.core.plan.PlanFile.*;
+
+/**
+ * Appends records to a plan file through a sliding memory-mapped region, so
+ * memory use doesn't depend on the size of the plan. A new plan file deletes
+ * the journal of the one it replaces, a scanned one is continued from its
+ * planning checkpoint.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class PlanWriter implements Closeable {
+
+    private static final long REGION_SIZE = 8L << 20;
+    private MappedByteBuffer mBuffer;
+    private final FileChannel mChannel;
+    private int mCount;
+    private String mCurrentDir;
+    private final MappedByteBuffer mHeader;
+    private final int mPlannedCount;
+    private long mRegionStart;
+
+    /**
+     * Opens a scanned plan file to continue planning. Targets written after
+     * the planning checkpoint are dropped.
+     */
+    public PlanWriter(File file) throws IOException {
+        long headerSize;
+        try (var reader = new PlanReader(file)) {
+            if (reader.getState() != State.SCANNED) {
+                throw new IOException("Not a scanned plan file: " + file);
+            }
+            headerSize = OFFSET_KEY + Integer.BYTES * 2 + reader.getKey().getBytes(StandardCharsets.UTF_8).length + reader.getTaskId().getBytes(StandardCharsets.UTF_8).length;
+            mCount = reader.getCount();
+            mPlannedCount = reader.getPlannedCount();
+            mRegionStart = reader.getPlannedPosition();
+        }
+
+        mChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mChannel.truncate(mRegionStart);
+        mHeader = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, mRegionStart, REGION_SIZE);
+    }
+
+    public PlanWriter(File file, String key, String taskId) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.deleteIfExists(TransferJournal.getFile(file).toPath());
+        mChannel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        var taskIdBytes = taskId.getBytes(StandardCharsets.UTF_8);
+        int headerSize = OFFSET_KEY + Integer.BYTES * 2 + keyBytes.length + taskIdBytes.length;
+        mHeader = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+        mPlannedCount = 0;
+        mHeader.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(State.SCANNING.ordinal())
+                .putInt(0)
+                .putLong(0)
+                .putLong(0)
+                .putInt(0)
+                .putLong(ThreadLocalRandom.current().nextLong())
+                .putLong(0)
+                .putInt(0)
+                .putInt(keyBytes.length)
+                .put(keyBytes)
+                .putInt(taskIdBytes.length)
+                .put(taskIdBytes);
+
+        mRegionStart = headerSize;
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, mRegionStart, REGION_SIZE);
+    }
+
+    public void addSource(String dir, String name, long size, long modified, long created) throws IOException {
+        if (!dir.equals(mCurrentDir)) {
+            var dirBytes = dir.getBytes(StandardCharsets.UTF_8);
+            reserve(TYPE_DIR, Integer.BYTES + dirBytes.length)
+                    .putInt(dirBytes.length)
+                    .put(dirBytes);
+            mCurrentDir = dir;
+        }
+
+        var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        reserve(TYPE_SOURCE, Integer.BYTES + nameBytes.length + Long.BYTES * 3)
+                .putInt(nameBytes.length)
+                .put(nameBytes)
+                .putLong(size)
+                .putLong(modified)
+                .putLong(created);
+        mCount++;
+    }
+
+    public void addTarget(Target target) throws IOException {
+        var sourceBytes = target.source().getBytes(StandardCharsets.UTF_8);
+        var destBytes = target.dest().getBytes(StandardCharsets.UTF_8);
+        reserve(TYPE_TARGET, Integer.BYTES * 2 + sourceBytes.length + destBytes.length + 1 + Long.BYTES * 3)
+                .putInt(sourceBytes.length)
+                .put(sourceBytes)
+                .putInt(destBytes.length)
+                .put(destBytes)
+                .put((byte) target.command().ordinal())
+                .putLong(target.size())
+                .putLong(target.modified())
+                .putLong(target.date());
+    }
+
+    @Override
+    public void close() throws IOException {
+        mBuffer.force();
+        mChannel.close();
+    }
+
+    /**
+     * Ends the source section and marks where the targets start.
+     */
+    public void endScan() throws IOException {
+        reserve(TYPE_SCAN_END, 0);
+        mHeader.putInt(OFFSET_COUNT, mCount);
+        mHeader.putLong(OFFSET_TARGETS, getPosition());
+        writeState(State.SCANNED);
+    }
+
+    public void endPlan() throws IOException {
+        reserve(TYPE_PLAN_END, 0);
+        writeState(State.PLANNED);
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the number of sources planned by an earlier run, before the
+     * planning checkpoint.
+     */
+    public int getPlannedCount() {
+        return mPlannedCount;
+    }
+
+    /**
+     * Returns the file position of the next record.
+     */
+    public long getPosition() {
+        return mRegionStart + mBuffer.position();
+    }
+
+    /**
+     * Marks the targets up to position, planned from the first count
+     * sources, as kept by the next run that continues planning.
+     */
+    public void writePlanningCheckpoint(long position, int count) {
+        mBuffer.force();
+        mHeader.putLong(OFFSET_PLANNED, position);
+        mHeader.putInt(OFFSET_PLANNED_COUNT, count);
+        mHeader.force();
+    }
+
+    private ByteBuffer reserve(byte type, int payloadLength) throws IOException {
+        int recordLength = Integer.BYTES + 1 + payloadLength;
+        // keep one int free for the zero end marker
+        if (mBuffer.remaining() < recordLength + Integer.BYTES) {
+            // a state written later must not get ahead of the earlier regions
+            mBuffer.force();
+            mRegionStart = getPosition();
+            mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, mRegionStart, Math.max(REGION_SIZE, recordLength + Integer.BYTES));
+        }
+
+        return mBuffer.putInt(1 + payloadLength).put(type);
+    }
+
+    private void writeState(State state) {
+        mBuffer.force();
+        mHeader.putInt(OFFSET_STATE, state.ordinal());
+        mHeader.force();
+    }
+}
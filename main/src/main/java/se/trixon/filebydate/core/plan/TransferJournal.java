@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Patrik Karlström <patrik@trixon.se>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.trixon.filebydate.core.plan;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Write-ahead journal of the transfers made from a plan file. Every step of a
+ * transfer is appended as {@code [int target index][byte step]}, so an
+ * interrupted run can be resumed from the last durable step. Appends are
+ * buffered and only reach the disk on {@link #sync()}, which lets the caller
+ * batch the fsyncs. The journal holds the id of its plan, one left by another
+ * plan written to the same file is discarded.
+ * <p>
+ * The last step of each target is kept in memory as four bits at the index
+ * of the target, half a byte per planned file.
+ *
+ * @author Patrik Karlström <patrik@trixon.se>
+ */
+public class TransferJournal implements Closeable {
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int MAGIC = 0x46424a4c;
+    private static final int RECORD_SIZE = Integer.BYTES + 1;
+    private static final int STEPS_PER_LONG = Long.SIZE / 4;
+    private static final int VERSION = 3;
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+    private final FileChannel mChannel;
+    private long[] mSteps = new long[1024];
+
+    public static File getFile(File planFile) {
+        return new File(planFile.getPath() + ".journal");
+    }
+
+    /**
+     * @param planId the id of the plan, from {@link PlanReader#getId()}
+     */
+    public TransferJournal(File file, long planId) throws IOException {
+        mChannel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        try {
+            if (mChannel.size() < HEADER_SIZE || !load(planId)) {
+                mChannel.truncate(0);
+                mChannel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(planId).flip(), 0);
+                mChannel.force(false);
+            }
+        } catch (IOException ex) {
+            mChannel.close();
+            throw ex;
+        }
+    }
+
+    public void append(int index, Step step) throws IOException {
+        if (mBuffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+
+        mBuffer.putInt(index).put((byte) step.ordinal());
+        setStep(index, step);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            mChannel.close();
+        }
+    }
+
+    /**
+     * Returns the last step recorded for the target, or null if it was never
+     * started.
+     */
+    public Step getStep(int index) {
+        int slot = index / STEPS_PER_LONG;
+        if (slot >= mSteps.length) {
+            return null;
+        }
+
+        int value = (int) (mSteps[slot] >>> (index % STEPS_PER_LONG * 4)) & 0xf;
+
+        return value == 0 ? null : Step.values()[value - 1];
+    }
+
+    public void sync() throws IOException {
+        flush();
+        mChannel.force(false);
+    }
+
+    private void flush() throws IOException {
+        mBuffer.flip();
+        while (mBuffer.hasRemaining()) {
+            mChannel.write(mBuffer, mChannel.size());
+        }
+        mBuffer.clear();
+    }
+
+    /**
+     * @return false if the journal belongs to another plan
+     */
+    private boolean load(long planId) throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        mChannel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a transfer journal");
+        } else if (header.getLong(Integer.BYTES * 2) != planId) {
+            return false;
+        }
+
+        // drop a record torn by a crash
+        long end = HEADER_SIZE + (mChannel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        mChannel.truncate(end);
+
+        var buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        for (long position = HEADER_SIZE; position < end;) {
+            buffer.clear();
+            position += mChannel.read(buffer, position);
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                setStep(buffer.getInt(), Step.values()[buffer.get()]);
+            }
+            position -= buffer.remaining();
+        }
+
+        return true;
+    }
+
+    private void setStep(int index, Step step) {
+        int slot = index / STEPS_PER_LONG;
+        if (slot >= mSteps.length) {
+            mSteps = Arrays.copyOf(mSteps, Math.max(slot + 1, mSteps.length * 2));
+        }
+
+        int shift = index % STEPS_PER_LONG * 4;
+        mSteps[slot] = mSteps[slot] & ~(0xfL << shift) | (long) (step.ordinal() + 1) << shift;
+    }
+
+    public enum Step {
+        INTENT, COPIED, VERIFIED, DELETED;
+    }
+}
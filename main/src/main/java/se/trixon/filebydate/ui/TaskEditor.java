@@ -15,6 +15,7 @@
  */
 package se.trixon.filebydate.ui;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -24,6 +25,7 @@ import javafx.collections.FXCollections;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.ColumnConstraints;
@@ -35,6 +37,7 @@ import org.apache.commons.lang3.Strings;
 import org.controlsfx.validation.ValidationSupport;
 import org.controlsfx.validation.Validator;
 import org.openide.DialogDescriptor;
+import org.openide.util.NbBundle;
 import se.trixon.almond.nbp.Almond;
 import se.trixon.almond.util.Dict;
 import se.trixon.almond.util.fx.FxHelper;
@@ -55,22 +58,42 @@ public class TaskEditor extends GridPane {
 
     private ComboBox<NameCase> mCaseBaseComboBox;
     private ComboBox<NameCase> mCaseExtComboBox;
+    private TextField mDateFromTextField;
     private ComboBox<String> mDatePatternComboBox;
     private Label mDatePatternLabel;
     private ComboBox<DateSource> mDateSourceComboBox;
+    private TextField mDateSourceFallbacksTextField;
+    private TextField mDateToTextField;
     private TextField mDescTextField;
     private FileChooserPaneSwingFx mDestChooserPane;
+    private CheckBox mCompareCheckBox;
+    private CheckBox mDedupCheckBox;
     private DialogDescriptor mDialogDescriptor;
+    private TextField mExcludeTextField;
+    private TextField mExtraDestTextField;
+    private TextField mExtraSourceTextField;
+    private TextField mFilenameDatePatternsTextField;
+    private CheckBox mGroupSidecarsCheckBox;
     private ComboBox<String> mFilePatternComboBox;
+    private TextField mIncludeTextField;
     private CheckBox mLinksCheckBox;
+    private Spinner<Integer> mMaxDepthSpinner;
+    private TextField mMaxSizeTextField;
+    private TextField mMinSizeTextField;
+    private TextField mModifiedFromTextField;
+    private TextField mModifiedToTextField;
     private TextField mNameTextField;
     private ComboBox<Command> mOperationComboBox;
     private final Options mOptions = Options.getInstance();
     private CheckBox mRecursiveCheckBox;
     private CheckBox mReplaceCheckBox;
+    private TextField mSidecarExtensionsTextField;
+    private CheckBox mSkipEmptyCheckBox;
+    private CheckBox mSkipHiddenCheckBox;
     private FileChooserPaneSwingFx mSourceChooserPane;
     private Task mTask;
     private final TaskManager mTaskManager = TaskManager.getInstance();
+    private CheckBox mVerifyCheckBox;
 
     public TaskEditor() {
         createUI();
@@ -92,14 +115,34 @@ public class TaskEditor extends GridPane {
         mNameTextField.setText(task.getName());
         mDescTextField.setText(task.getDescription());
         mSourceChooserPane.setPath(task.getSourceDir());
+        mExtraSourceTextField.setText(task.getExtraSourceDirsAsString());
         mDestChooserPane.setPath(task.getDestDir());
+        mExtraDestTextField.setText(task.getExtraDestDirsAsString());
         mFilePatternComboBox.setValue(task.getFilePattern());
+        mIncludeTextField.setText(task.getIncludesAsString());
+        mExcludeTextField.setText(task.getExcludesAsString());
+        mDateFromTextField.setText(task.getDateFrom());
+        mDateToTextField.setText(task.getDateTo());
+        mMinSizeTextField.setText(task.getMinSize());
+        mMaxSizeTextField.setText(task.getMaxSize());
+        mModifiedFromTextField.setText(task.getModifiedFrom());
+        mModifiedToTextField.setText(task.getModifiedTo());
+        mMaxDepthSpinner.getValueFactory().setValue(task.getMaxDepth());
+        mSkipHiddenCheckBox.setSelected(task.isSkipHidden());
+        mSkipEmptyCheckBox.setSelected(task.isSkipEmpty());
         mDateSourceComboBox.setValue(task.getDateSource());
+        mDateSourceFallbacksTextField.setText(task.getDateSourceFallbacksAsString());
         mDatePatternComboBox.setValue(task.getDatePattern());
+        mFilenameDatePatternsTextField.setText(task.getFilenameDatePatternsAsString());
         mOperationComboBox.getSelectionModel().select(task.getCommand());
         mLinksCheckBox.setSelected(task.isFollowLinks());
         mRecursiveCheckBox.setSelected(task.isRecursive());
         mReplaceCheckBox.setSelected(task.isReplaceExisting());
+        mCompareCheckBox.setSelected(task.isCompareExisting());
+        mDedupCheckBox.setSelected(task.isDeduplicate());
+        mGroupSidecarsCheckBox.setSelected(task.isGroupSidecars());
+        mSidecarExtensionsTextField.setText(task.getSidecarExtensionsAsString());
+        mVerifyCheckBox.setSelected(task.isVerify());
         mCaseBaseComboBox.setValue(task.getCaseBase());
         mCaseExtComboBox.setValue(task.getCaseExt());
     }
@@ -110,14 +153,34 @@ public class TaskEditor extends GridPane {
         mTask.setName(mNameTextField.getText().trim());
         mTask.setDescription(mDescTextField.getText());
         mTask.setSourceDir(mSourceChooserPane.getPath());
+        mTask.setExtraSourceDirsString(mExtraSourceTextField.getText());
         mTask.setDestDir(mDestChooserPane.getPath());
+        mTask.setExtraDestDirsString(mExtraDestTextField.getText());
         mTask.setFilePattern(mFilePatternComboBox.getValue());
+        mTask.setIncludesString(mIncludeTextField.getText());
+        mTask.setExcludesString(mExcludeTextField.getText());
+        mTask.setDateFrom(mDateFromTextField.getText());
+        mTask.setDateTo(mDateToTextField.getText());
+        mTask.setMinSize(mMinSizeTextField.getText());
+        mTask.setMaxSize(mMaxSizeTextField.getText());
+        mTask.setModifiedFrom(mModifiedFromTextField.getText());
+        mTask.setModifiedTo(mModifiedToTextField.getText());
+        mTask.setMaxDepth(mMaxDepthSpinner.getValue());
+        mTask.setSkipHidden(mSkipHiddenCheckBox.isSelected());
+        mTask.setSkipEmpty(mSkipEmptyCheckBox.isSelected());
         mTask.setDateSource(mDateSourceComboBox.getValue());
+        mTask.setDateSourceFallbacks(DateSource.parseList(mDateSourceFallbacksTextField.getText()));
         mTask.setDatePattern(mDatePatternComboBox.getValue());
+        mTask.setFilenameDatePatternsString(mFilenameDatePatternsTextField.getText());
         mTask.setOperation(mOperationComboBox.getSelectionModel().getSelectedIndex());
         mTask.setFollowLinks(mLinksCheckBox.isSelected());
         mTask.setRecursive(mRecursiveCheckBox.isSelected());
         mTask.setReplaceExisting(mReplaceCheckBox.isSelected());
+        mTask.setCompareExisting(mCompareCheckBox.isSelected());
+        mTask.setDeduplicate(mDedupCheckBox.isSelected());
+        mTask.setGroupSidecars(mGroupSidecarsCheckBox.isSelected());
+        mTask.setSidecarExtensionsString(mSidecarExtensionsTextField.getText());
+        mTask.setVerify(mVerifyCheckBox.isSelected());
         mTask.setCaseBase(mCaseBaseComboBox.getValue());
         mTask.setCaseExt(mCaseExtComboBox.getValue());
 
@@ -141,6 +204,14 @@ public class TaskEditor extends GridPane {
         mLinksCheckBox = new CheckBox(Dict.FOLLOW_LINKS.toString());
         mRecursiveCheckBox = new CheckBox(Dict.RECURSIVE.toString());
         mReplaceCheckBox = new CheckBox(Dict.REPLACE.toString());
+        mCompareCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "compare_existing"));
+        mCompareCheckBox.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "compare_existing_tooltip")));
+        mDedupCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "deduplicate"));
+        mDedupCheckBox.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "deduplicate_tooltip")));
+        mGroupSidecarsCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "group_sidecars"));
+        mGroupSidecarsCheckBox.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "group_sidecars_tooltip")));
+        mVerifyCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "verify"));
+        mVerifyCheckBox.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "verify_tooltip")));
 
         mCaseBaseComboBox = new ComboBox<>();
         mDatePatternComboBox = new ComboBox<>();
@@ -154,6 +225,55 @@ public class TaskEditor extends GridPane {
 
         mSourceChooserPane = new FileChooserPaneSwingFx(Dict.OPEN.toString(), Dict.SOURCE.toString(), Almond.getFrame(), JFileChooser.DIRECTORIES_ONLY);
         mDestChooserPane = new FileChooserPaneSwingFx(Dict.OPEN.toString(), Dict.DESTINATION.toString(), Almond.getFrame(), JFileChooser.DIRECTORIES_ONLY);
+        var extraSourceLabel = new Label(NbBundle.getMessage(TaskEditor.class, "extra_sources"));
+        mExtraSourceTextField = new TextField();
+        mExtraSourceTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "extra_sources_prompt").formatted(File.pathSeparator));
+        var extraDestLabel = new Label(NbBundle.getMessage(TaskEditor.class, "extra_destinations"));
+        mExtraDestTextField = new TextField();
+        mExtraDestTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "extra_destinations_prompt").formatted(File.pathSeparator));
+
+        var dateSourceFallbacksLabel = new Label(NbBundle.getMessage(TaskEditor.class, "date_source_fallbacks"));
+        mDateSourceFallbacksTextField = new TextField();
+        mDateSourceFallbacksTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "date_source_fallbacks_prompt"));
+        var filenameDatePatternsLabel = new Label(NbBundle.getMessage(TaskEditor.class, "filename_date_patterns"));
+        mFilenameDatePatternsTextField = new TextField();
+        mFilenameDatePatternsTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "filename_date_patterns_prompt"));
+        var includeLabel = new Label(NbBundle.getMessage(TaskEditor.class, "include"));
+        mIncludeTextField = new TextField();
+        mIncludeTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "include_prompt"));
+        var excludeLabel = new Label(NbBundle.getMessage(TaskEditor.class, "exclude"));
+        mExcludeTextField = new TextField();
+        mExcludeTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "exclude_prompt"));
+
+        var sidecarExtensionsLabel = new Label(NbBundle.getMessage(TaskEditor.class, "sidecar_extensions"));
+        mSidecarExtensionsTextField = new TextField();
+        mSidecarExtensionsTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "sidecar_extensions_prompt"));
+
+        var dateFromLabel = new Label(NbBundle.getMessage(TaskEditor.class, "date_from"));
+        mDateFromTextField = new TextField();
+        mDateFromTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "time_prompt"));
+        var dateToLabel = new Label(NbBundle.getMessage(TaskEditor.class, "date_to"));
+        mDateToTextField = new TextField();
+        mDateToTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "time_prompt"));
+        var minSizeLabel = new Label(NbBundle.getMessage(TaskEditor.class, "min_size"));
+        mMinSizeTextField = new TextField();
+        mMinSizeTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "size_prompt"));
+        var maxSizeLabel = new Label(NbBundle.getMessage(TaskEditor.class, "max_size"));
+        mMaxSizeTextField = new TextField();
+        mMaxSizeTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "size_prompt"));
+        var modifiedFromLabel = new Label(NbBundle.getMessage(TaskEditor.class, "modified_from"));
+        mModifiedFromTextField = new TextField();
+        mModifiedFromTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "time_prompt"));
+        var modifiedToLabel = new Label(NbBundle.getMessage(TaskEditor.class, "modified_to"));
+        mModifiedToTextField = new TextField();
+        mModifiedToTextField.setPromptText(NbBundle.getMessage(TaskEditor.class, "time_prompt"));
+        var maxDepthLabel = new Label(NbBundle.getMessage(TaskEditor.class, "max_depth"));
+        mMaxDepthSpinner = new Spinner<>(0, 999, 0);
+        mMaxDepthSpinner.setEditable(true);
+        mMaxDepthSpinner.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "max_depth_tooltip")));
+        mSkipHiddenCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "skip_hidden"));
+        mSkipHiddenCheckBox.setTooltip(new Tooltip(NbBundle.getMessage(TaskEditor.class, "skip_hidden_tooltip")));
+        mSkipEmptyCheckBox = new CheckBox(NbBundle.getMessage(TaskEditor.class, "skip_empty"));
 
         mFilePatternComboBox.setEditable(true);
         mDatePatternComboBox.setEditable(true);
@@ -167,13 +287,21 @@ public class TaskEditor extends GridPane {
         add(descLabel, col, ++row, REMAINING, 1);
         add(mDescTextField, col, ++row, REMAINING, 1);
         add(mSourceChooserPane, col, ++row, REMAINING, 1);
+        add(extraSourceLabel, col, ++row, REMAINING, 1);
+        add(mExtraSourceTextField, col, ++row, REMAINING, 1);
         add(mDestChooserPane, col, ++row, REMAINING, 1);
+        add(extraDestLabel, col, ++row, REMAINING, 1);
+        add(mExtraDestTextField, col, ++row, REMAINING, 1);
 
         var patternPane = new GridPane();
         patternPane.addRow(0, filePatternLabel, dateSourceLabel, mDatePatternLabel);
         patternPane.addRow(1, mFilePatternComboBox, mDateSourceComboBox, mDatePatternComboBox);
         patternPane.setHgap(8);
         addRow(++row, patternPane);
+        add(dateSourceFallbacksLabel, col, ++row, REMAINING, 1);
+        add(mDateSourceFallbacksTextField, col, ++row, REMAINING, 1);
+        add(filenameDatePatternsLabel, col, ++row, REMAINING, 1);
+        add(mFilenameDatePatternsTextField, col, ++row, REMAINING, 1);
 
         GridPane.setHgrow(mFilePatternComboBox, Priority.ALWAYS);
         GridPane.setHgrow(mDateSourceComboBox, Priority.ALWAYS);
@@ -195,10 +323,31 @@ public class TaskEditor extends GridPane {
         mFilePatternComboBox.setMaxWidth(Double.MAX_VALUE);
         mDateSourceComboBox.setMaxWidth(Double.MAX_VALUE);
         mDatePatternComboBox.setMaxWidth(Double.MAX_VALUE);
+
+        var filterPane = new GridPane();
+        filterPane.addRow(0, includeLabel, excludeLabel, sidecarExtensionsLabel);
+        filterPane.addRow(1, mIncludeTextField, mExcludeTextField, mSidecarExtensionsTextField);
+        filterPane.setHgap(8);
+        addRow(++row, filterPane);
+
+        var includeCol = new ColumnConstraints();
+        includeCol.setPercentWidth(40);
+        var excludeCol = new ColumnConstraints();
+        excludeCol.setPercentWidth(40);
+        var sidecarCol = new ColumnConstraints();
+        sidecarCol.setPercentWidth(20);
+        filterPane.getColumnConstraints().addAll(includeCol, excludeCol, sidecarCol);
+
+        var attributePane = new GridPane();
+        attributePane.addRow(0, dateFromLabel, dateToLabel, minSizeLabel, maxSizeLabel, modifiedFromLabel, modifiedToLabel, maxDepthLabel, new Label(), new Label());
+        attributePane.addRow(1, mDateFromTextField, mDateToTextField, mMinSizeTextField, mMaxSizeTextField, mModifiedFromTextField, mModifiedToTextField, mMaxDepthSpinner, mSkipHiddenCheckBox, mSkipEmptyCheckBox);
+        attributePane.setHgap(8);
+        addRow(++row, attributePane);
+
         GridPane subPane = new GridPane();
         //subPane.setGridLinesVisible(true);
-        subPane.addRow(0, operationLabel, new Label(), new Label(), new Label(), caseBaseLabel, caseExtLabel);
-        subPane.addRow(1, mOperationComboBox, mLinksCheckBox, mRecursiveCheckBox, mReplaceCheckBox, mCaseBaseComboBox, mCaseExtComboBox);
+        subPane.addRow(0, operationLabel, new Label(), new Label(), new Label(), new Label(), new Label(), new Label(), new Label(), caseBaseLabel, caseExtLabel);
+        subPane.addRow(1, mOperationComboBox, mLinksCheckBox, mRecursiveCheckBox, mReplaceCheckBox, mCompareCheckBox, mDedupCheckBox, mGroupSidecarsCheckBox, mVerifyCheckBox, mCaseBaseComboBox, mCaseExtComboBox);
         subPane.setHgap(8);
         add(subPane, col, ++row, REMAINING, 1);
 
@@ -208,7 +357,13 @@ public class TaskEditor extends GridPane {
         GridPane.setMargin(mDescTextField, rowInsets);
         GridPane.setMargin(mSourceChooserPane, rowInsets);
         GridPane.setMargin(mDestChooserPane, rowInsets);
+        GridPane.setMargin(mExtraSourceTextField, rowInsets);
+        GridPane.setMargin(mExtraDestTextField, rowInsets);
         GridPane.setMargin(patternPane, rowInsets);
+        GridPane.setMargin(mDateSourceFallbacksTextField, rowInsets);
+        GridPane.setMargin(mFilenameDatePatternsTextField, rowInsets);
+        GridPane.setMargin(filterPane, rowInsets);
+        GridPane.setMargin(attributePane, rowInsets);
 
         mFilePatternComboBox.setItems(FXCollections.observableArrayList(
                 "*",
@@ -227,7 +382,7 @@ public class TaskEditor extends GridPane {
         mCaseBaseComboBox.setItems(FXCollections.observableArrayList(Arrays.asList(NameCase.values())));
         mCaseExtComboBox.setItems(FXCollections.observableArrayList(Arrays.asList(NameCase.values())));
         mDateSourceComboBox.setItems(FXCollections.observableArrayList(Arrays.asList(DateSource.values())));
-        mOperationComboBox.setItems(FXCollections.observableArrayList(Arrays.asList(Command.COPY, Command.MOVE)));
+        mOperationComboBox.setItems(FXCollections.observableArrayList(Arrays.asList(Command.values())));
     }
 
     private void initListeners() {
@@ -236,6 +391,7 @@ public class TaskEditor extends GridPane {
     private void initValidation() {
         var textRequired = "Text is required";
         var textUnique = "Text has to be unique";
+        var textDateSources = "Unknown date source";
         boolean indicateRequired = false;
 
         var namePredicate = (Predicate<String>) s -> {
@@ -244,6 +400,14 @@ public class TaskEditor extends GridPane {
         var datePredicate = (Predicate<String>) s -> {
             return !StringUtils.isBlank(s) && previewDateFormat();
         };
+        var dateSourcesPredicate = (Predicate<String>) s -> {
+            try {
+                DateSource.parseList(s);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        };
 
         var uniqueNamePredicate = (Predicate<String>) s -> {
             var newName = mNameTextField.getText();
@@ -267,6 +431,7 @@ public class TaskEditor extends GridPane {
         validationSupport.registerValidator(mFilePatternComboBox, indicateRequired, Validator.createEmptyValidator(textRequired));
         validationSupport.registerValidator(mDatePatternComboBox, indicateRequired, Validator.createEmptyValidator(textRequired));
         validationSupport.registerValidator(mDatePatternComboBox, indicateRequired, Validator.createPredicateValidator(datePredicate, textRequired));
+        validationSupport.registerValidator(mDateSourceFallbacksTextField, indicateRequired, Validator.createPredicateValidator(dateSourcesPredicate, textDateSources));
 
         validationSupport.validationResultProperty().addListener((p, o, n) -> {
             mDialogDescriptor.setValid(!validationSupport.isInvalid());
@@ -19,9 +19,13 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ResourceBundle;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.VBox;
+import org.openide.util.NbBundle;
 import se.trixon.almond.util.fx.FxHelper;
 import se.trixon.almond.util.fx.control.editable_list.EditableListCell;
 import se.trixon.filebydate.core.ExecutorManager;
@@ -33,6 +37,8 @@ import se.trixon.filebydate.core.Task;
  */
 public class TaskListCell extends EditableListCell<Task> {
 
+    private final ResourceBundle mBundle = NbBundle.getBundle(TaskListCell.class);
+    private final ContextMenu mContextMenu = new ContextMenu();
     private final Label mDescLabel = new Label();
     private final TaskListEditor mEditor;
     private final Label mNameLabel = new Label();
@@ -77,11 +83,13 @@ public class TaskListCell extends EditableListCell<Task> {
             }
         });
         setGraphic(mRoot);
+        setContextMenu(mContextMenu);
     }
 
     private void clearContent() {
         setText(null);
         setGraphic(null);
+        setContextMenu(null);
     }
 
     private void createUI() {
@@ -91,6 +99,20 @@ public class TaskListCell extends EditableListCell<Task> {
         mNameLabel.setStyle(fontStyle.formatted(fontSize * 1.4, "bold"));
         mDescLabel.setStyle(fontStyle.formatted(fontSize * 1.1, "normal"));
         mLastRunLabel.setStyle(fontStyle.formatted(fontSize * 1.1, "normal"));
+
+        var executorManager = ExecutorManager.getInstance();
+        var pauseMenuItem = new MenuItem(mBundle.getString("task_pause"));
+        pauseMenuItem.setOnAction(actionEvent -> executorManager.pause(getItem()));
+        var resumeMenuItem = new MenuItem(mBundle.getString("task_resume"));
+        resumeMenuItem.setOnAction(actionEvent -> executorManager.resume(getItem()));
+
+        mContextMenu.getItems().setAll(pauseMenuItem, resumeMenuItem);
+        mContextMenu.setOnShowing(windowEvent -> {
+            var task = getItem();
+            var paused = task != null && executorManager.isPaused(task);
+            pauseMenuItem.setDisable(task == null || !executorManager.isRunning(task) || paused);
+            resumeMenuItem.setDisable(!paused);
+        });
     }
 
 }
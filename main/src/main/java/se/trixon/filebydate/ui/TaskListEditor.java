@@ -104,6 +104,7 @@ public class TaskListEditor {
                     var uuid = UUID.randomUUID().toString();
                     clone.setId(uuid);
                     clone.setLastRun(0);
+                    clone.setLastSuccess(0);
                     clone.setName("%s %s".formatted(clone.getName(), LocalDate.now().toString()));
                     mTaskManager.getIdToItem().put(clone.getId(), clone);
 
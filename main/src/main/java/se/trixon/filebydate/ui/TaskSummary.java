@@ -19,6 +19,7 @@ import java.io.File;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
@@ -33,6 +34,7 @@ import se.trixon.almond.util.BooleanHelper;
 import se.trixon.almond.util.Dict;
 import se.trixon.almond.util.fx.FxHelper;
 import se.trixon.filebydate.core.Task;
+import se.trixon.filebydate.core.parts.DateSource;
 
 /**
  *
@@ -96,21 +98,27 @@ public class TaskSummary extends VBox {
 
         final void load(Task task) {
             mOperation.setText(task.getCommand().toString());
-            mSource.setText(String.format("%s%s%s",
+            var source = String.format("%s%s%s",
                     task.getSourceDirAsString(),
                     File.separator,
-                    task.getFilePattern())
-            );
+                    task.getFilePattern());
+            if (!task.getExtraSourceDirs().isEmpty()) {
+                source = String.format("%s (%s %s)", source, mBundle.getString("also_from"), String.join(", ", task.getExtraSourceDirsAsString().split(File.pathSeparator)));
+            }
+            mSource.setText(source);
 
-            mDest.setText(String.format("%s%s%s\n",
+            var dest = String.format("%s%s%s",
                     task.getDestDirAsString(),
                     File.separator,
-                    task.getDatePattern())
-            );
+                    task.getDatePattern());
+            if (!task.getExtraDestDirs().isEmpty()) {
+                dest = String.format("%s (%s %s)", dest, mBundle.getString("also_to"), String.join(", ", task.getExtraDestDirsAsString().split(File.pathSeparator)));
+            }
+            mDest.setText(dest + "\n");
 
             mBasedOn.setText(String.format("%s = '%s'\n",
                     Dict.DATE_SOURCE.toString(),
-                    task.getDateSource().toString()
+                    task.getDateSources().stream().map(DateSource::toString).collect(Collectors.joining(", "))
             ));
 
             var sb = new StringBuilder();
@@ -17,21 +17,46 @@ package se.trixon.filebydate.ui.options;
 
 import java.awt.BorderLayout;
 import javafx.scene.Scene;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
 import javafx.scene.layout.GridPane;
+import javax.swing.JFileChooser;
 import javax.swing.JPanel;
+import org.openide.util.NbBundle;
+import se.trixon.almond.nbp.Almond;
 import se.trixon.almond.nbp.fx.FxPanel;
 import se.trixon.almond.util.Dict;
 import se.trixon.almond.util.fx.FxHelper;
+import se.trixon.almond.util.fx.control.FileChooserPaneSwingFx;
 import se.trixon.almond.util.fx.control.LocaleComboBox;
 import se.trixon.filebydate.Options;
+import se.trixon.filebydate.core.IoThrottle;
 
+@NbBundle.Messages({
+    "MainPanel.maxFilesPerSecond=Max files/s per device (0 = unlimited)",
+    "MainPanel.maxMegabytesPerSecond=Max MB/s per device (0 = unlimited)",
+    "MainPanel.metadataMaxMegabytes=Max MB read per file for metadata (0 = unlimited)",
+    "MainPanel.metadataReaders=Dates read at a time (1 = one after the other, raise for network mounts)",
+    "MainPanel.metadataTimeout=Max seconds per file for metadata (0 = unlimited)",
+    "MainPanel.planOnDisk=Keep the execution plan on disk (for very large runs)",
+    "MainPanel.prometheusDir=Prometheus textfile directory (leave empty to disable)",
+    "MainPanel.verifyDirect=Bypass the cache when verifying copies (O_DIRECT)"
+})
 final class MainPanel extends JPanel {
 
     private final MainPanelController mController;
     private final FxPanel mFxPanel;
     private final LocaleComboBox mLocaleComboBox = new LocaleComboBox();
+    private final Spinner<Integer> mMaxFilesPerSecondSpinner = new Spinner<>(0, 100000, 0, 10);
+    private final Spinner<Integer> mMaxMegabytesPerSecondSpinner = new Spinner<>(0, 100000, 0, 10);
+    private final Spinner<Integer> mMetadataMaxMegabytesSpinner = new Spinner<>(0, 100000, 256, 16);
+    private final Spinner<Integer> mMetadataReadersSpinner = new Spinner<>(1, Options.MAX_METADATA_READERS, 1, 4);
+    private final Spinner<Integer> mMetadataTimeoutSpinner = new Spinner<>(0, 3600, 30, 5);
     private final Options mOptions = Options.getInstance();
+    private final CheckBox mPlanOnDiskCheckBox = new CheckBox(NbBundle.getMessage(MainPanel.class, "MainPanel.planOnDisk"));
+    private final FileChooserPaneSwingFx mPrometheusDirChooserPane = new FileChooserPaneSwingFx(Dict.OPEN.toString(), NbBundle.getMessage(MainPanel.class, "MainPanel.prometheusDir"), Almond.getFrame(), JFileChooser.DIRECTORIES_ONLY);
+    private final CheckBox mVerifyDirectCheckBox = new CheckBox(NbBundle.getMessage(MainPanel.class, "MainPanel.verifyDirect"));
 
     MainPanel(MainPanelController controller) {
         mController = controller;
@@ -49,7 +74,30 @@ final class MainPanel extends JPanel {
                 var label = new Label(Dict.CALENDAR_LANGUAGE.toString());
                 var gp = new GridPane();
                 //gridPane.setGridLinesVisible(true);
-                gp.addColumn(0, label, mLocaleComboBox);
+                var maxMegabytesPerSecondLabel = new Label(NbBundle.getMessage(MainPanel.class, "MainPanel.maxMegabytesPerSecond"));
+                var maxFilesPerSecondLabel = new Label(NbBundle.getMessage(MainPanel.class, "MainPanel.maxFilesPerSecond"));
+                mMaxMegabytesPerSecondSpinner.setEditable(true);
+                mMaxFilesPerSecondSpinner.setEditable(true);
+                var metadataTimeoutLabel = new Label(NbBundle.getMessage(MainPanel.class, "MainPanel.metadataTimeout"));
+                var metadataMaxMegabytesLabel = new Label(NbBundle.getMessage(MainPanel.class, "MainPanel.metadataMaxMegabytes"));
+                mMetadataTimeoutSpinner.setEditable(true);
+                mMetadataMaxMegabytesSpinner.setEditable(true);
+                var metadataReadersLabel = new Label(NbBundle.getMessage(MainPanel.class, "MainPanel.metadataReaders"));
+                mMetadataReadersSpinner.setEditable(true);
+                gp.addColumn(0, label, mLocaleComboBox, mPrometheusDirChooserPane, mPlanOnDiskCheckBox, mVerifyDirectCheckBox,
+                        maxMegabytesPerSecondLabel, mMaxMegabytesPerSecondSpinner,
+                        maxFilesPerSecondLabel, mMaxFilesPerSecondSpinner,
+                        metadataTimeoutLabel, mMetadataTimeoutSpinner,
+                        metadataMaxMegabytesLabel, mMetadataMaxMegabytesSpinner,
+                        metadataReadersLabel, mMetadataReadersSpinner
+                );
+                GridPane.setMargin(mPrometheusDirChooserPane, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(mPlanOnDiskCheckBox, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(maxMegabytesPerSecondLabel, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(maxFilesPerSecondLabel, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(metadataTimeoutLabel, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(metadataMaxMegabytesLabel, FxHelper.getUIScaledInsets(8, 0, 0, 0));
+                GridPane.setMargin(metadataReadersLabel, FxHelper.getUIScaledInsets(8, 0, 0, 0));
 
                 return new Scene(gp);
             }
@@ -63,10 +111,27 @@ final class MainPanel extends JPanel {
 
     void load() {
         mLocaleComboBox.setValue(mOptions.getLocale());
+        mMaxFilesPerSecondSpinner.getValueFactory().setValue(mOptions.getMaxFilesPerSecond());
+        mMaxMegabytesPerSecondSpinner.getValueFactory().setValue(mOptions.getMaxMegabytesPerSecond());
+        mMetadataMaxMegabytesSpinner.getValueFactory().setValue(mOptions.getMetadataMaxMegabytes());
+        mMetadataReadersSpinner.getValueFactory().setValue(mOptions.getMetadataReaders());
+        mMetadataTimeoutSpinner.getValueFactory().setValue(mOptions.getMetadataTimeout());
+        mPlanOnDiskCheckBox.setSelected(mOptions.isPlanOnDisk());
+        mPrometheusDirChooserPane.setPath(mOptions.getPrometheusDir());
+        mVerifyDirectCheckBox.setSelected(mOptions.isVerifyDirect());
     }
 
     void store() {
         mOptions.setLocale(mLocaleComboBox.getValue());
+        mOptions.setMaxFilesPerSecond(mMaxFilesPerSecondSpinner.getValue());
+        mOptions.setMaxMegabytesPerSecond(mMaxMegabytesPerSecondSpinner.getValue());
+        mOptions.setMetadataMaxMegabytes(mMetadataMaxMegabytesSpinner.getValue());
+        mOptions.setMetadataReaders(mMetadataReadersSpinner.getValue());
+        mOptions.setMetadataTimeout(mMetadataTimeoutSpinner.getValue());
+        mOptions.setPlanOnDisk(mPlanOnDiskCheckBox.isSelected());
+        mOptions.setPrometheusDir(mPrometheusDirChooserPane.getPath());
+        mOptions.setVerifyDirect(mVerifyDirectCheckBox.isSelected());
+        IoThrottle.getInstance().loadRates();
     }
 
     boolean valid() {